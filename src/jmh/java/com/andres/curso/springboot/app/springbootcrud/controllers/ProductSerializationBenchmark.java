@@ -0,0 +1,112 @@
+package com.andres.curso.springboot.app.springbootcrud.controllers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPage;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+// Serializacion de listas de productos con la misma configuracion de Jackson que usa Spring MVC, en
+// cada formato que negocia la API (JSON, CBOR y Smile): una pagina de /api/lista (ProductPage) y la
+// lista plana, con los tamaños de pagina por defecto y maximo, y la lectura de la pagina en el cliente.
+// Al preparar cada caso se imprime el tamaño de la pagina en bytes, sin comprimir y con gzip.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({ "json", "cbor", "smile" })
+    private String format;
+
+    @Param({ "20", "100" })
+    private int size;
+
+    private ObjectWriter writer;
+
+    private ObjectReader pageReader;
+
+    private List<Product> products;
+
+    private ProductPage page;
+
+    private byte[] pageBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+        writer = mapper.writer();
+        pageReader = mapper.readerFor(ProductPage.class);
+        products = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setSku("SKU-" + i);
+            product.setName("Producto " + i);
+            product.setDescription("Descripcion del producto numero " + i);
+            product.setPrice(500 + i);
+            product.setVersion(0L);
+            products.add(product);
+        }
+        page = new ProductPage(products, size, "QVNDOjEwMA");
+        pageBytes = writer.writeValueAsBytes(page);
+        System.out.printf("%n[bytes] formato=%s productos=%d sin comprimir=%d gzip=%d%n",
+                format, size, pageBytes.length, gzip(pageBytes).length);
+    }
+
+    @Benchmark
+    public byte[] productList() throws Exception {
+        return writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] productPage() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public ProductPage readProductPage() throws Exception {
+        return pageReader.readValue(pageBytes);
+    }
+
+    private static JsonFactory factory(String format) {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,63 @@
+package com.andres.curso.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Costo de pedir un token al limite de peticiones en el camino que permite la peticion, con todos
+// los hilos sobre el mismo usuario (contencion en un bucket) o repartidos entre muchos usuarios.
+// Con -prof gc se comprueba que no se crean objetos: mvn -Pjmh -DskipTests verify
+// -Djmh.args="-f 1 -prof gc RequestRateLimiterBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RequestRateLimiterBenchmark {
+
+    @Param({"1", "1000"})
+    private int users;
+
+    private RequestRateLimiter limiter;
+
+    private String[] usernames;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        // Capacidad tan alta que ninguna peticion se rechaza: se mide solo el camino permitido
+        limiter = new RequestRateLimiter(new SimpleMeterRegistry(), Long.MAX_VALUE / 1_000_000_000L, 1e9,
+                20, 2, Duration.ofMinutes(10), 100_000);
+        usernames = new String[users];
+        for (int i = 0; i < users; i++) {
+            usernames[i] = "user" + i;
+        }
+    }
+
+    @Benchmark
+    public long acquireForUser(Cursor cursor) {
+        String username = usernames[cursor.next];
+        cursor.next = cursor.next + 1 == usernames.length ? 0 : cursor.next + 1;
+        return limiter.acquireForUser(username);
+    }
+}
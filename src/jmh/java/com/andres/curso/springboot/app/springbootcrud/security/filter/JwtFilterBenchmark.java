@@ -0,0 +1,111 @@
+package com.andres.curso.springboot.app.springbootcrud.security.filter;
+
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.HEADER_AUTHORIZATION;
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.PREFIX_TOKEN;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import com.andres.curso.springboot.app.springbootcrud.security.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+// Emision del JWT en el login (JwtAuthenticationFilter) y validacion del token en cada peticion
+// (JwtValidationFilter), con la cache de tokens verificados y sin ella (firma + claims completos).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    // Tokens distintos para el caso sin cache: cada uno se repite solo despues de recorrer todos
+    private static final int DISTINCT_TOKENS = 20_000;
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private JwtAuthenticationFilter authenticationFilter;
+
+    private JwtValidationFilter cachedValidationFilter;
+
+    private JwtValidationFilter uncachedValidationFilter;
+
+    private Authentication authResult;
+
+    private MockHttpServletRequest cachedRequest;
+
+    private MockHttpServletRequest[] uncachedRequests;
+
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        authenticationFilter = new JwtAuthenticationFilter(authentication -> authentication, registry);
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"),
+                new SimpleGrantedAuthority("ROLE_ADMIN"));
+        authResult = new UsernamePasswordAuthenticationToken(new User("admin", "", authorities), null, authorities);
+
+        cachedValidationFilter = new JwtValidationFilter(authentication -> authentication,
+                new VerifiedTokenCache(registry, 1000), false, registry);
+        uncachedValidationFilter = new JwtValidationFilter(authentication -> authentication,
+                new VerifiedTokenCache(registry, 16), false, registry);
+
+        cachedRequest = requestWithToken(issueToken());
+        uncachedRequests = new MockHttpServletRequest[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            uncachedRequests[i] = requestWithToken(issueToken());
+        }
+    }
+
+    @Benchmark
+    public String issueToken() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        authenticationFilter.successfulAuthentication(new MockHttpServletRequest(), response, NO_OP_CHAIN, authResult);
+        return response.getHeader(HEADER_AUTHORIZATION).substring(PREFIX_TOKEN.length());
+    }
+
+    @Benchmark
+    public void validateTokenCached(Blackhole blackhole) throws Exception {
+        cachedValidationFilter.doFilterInternal(cachedRequest, new MockHttpServletResponse(), NO_OP_CHAIN);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void validateTokenUncached(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = uncachedRequests[next];
+        next = (next + 1) % DISTINCT_TOKENS;
+        uncachedValidationFilter.doFilterInternal(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/lista");
+        request.addHeader(HEADER_AUTHORIZATION, PREFIX_TOKEN + token);
+        return request;
+    }
+}
@@ -0,0 +1,115 @@
+package com.andres.curso.springboot.app.springbootcrud.validation;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+import com.andres.curso.springboot.app.springbootcrud.ProductValidation;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+import com.andres.curso.springboot.app.springbootcrud.entities.User;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+// Validaciones de entrada: RequiredValidation, ProductValidation (validador de Spring) y la
+// validacion completa de Product y User con Hibernate Validator. Sin contexto de Spring las
+// validaciones que consultan la BD (IsExistsDb, ExistsByUsername) no tienen servicio y aceptan el
+// valor, asi se mide solo el costo de las restricciones.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final RequiredValidation requiredValidation = new RequiredValidation();
+
+    private final ProductValidation productValidation = new ProductValidation();
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private Product validProduct;
+
+    private Product invalidProduct;
+
+    private User validUser;
+
+    @Setup
+    public void setup() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        validProduct = product("SKU-0001", "Teclado", "Teclado mecanico", 1500);
+        invalidProduct = product(" ", "Te", "", 100);
+
+        validUser = new User();
+        validUser.setUsername("andres");
+        validUser.setPassword("12345");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean requiredValidation() {
+        return requiredValidation.isValid(validProduct.getName(), null);
+    }
+
+    @Benchmark
+    public Errors productValidationValid() {
+        Errors errors = new BeanPropertyBindingResult(validProduct, "product");
+        productValidation.validate(validProduct, errors);
+        return errors;
+    }
+
+    @Benchmark
+    public Errors productValidationInvalid() {
+        Errors errors = new BeanPropertyBindingResult(invalidProduct, "product");
+        productValidation.validate(invalidProduct, errors);
+        return errors;
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> beanValidationProductValid() {
+        return validator.validate(validProduct);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> beanValidationProductInvalid() {
+        return validator.validate(invalidProduct);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<User>> beanValidationUser() {
+        return validator.validate(validUser);
+    }
+
+    private static Product product(String sku, String name, String description, Integer price) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -2,8 +2,12 @@ package com.andres.curso.springboot.app.springbootcrud;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableAsync
+@EnableScheduling
 @PropertySource("classpath:messages.properties")
 public class AppConfig {
     
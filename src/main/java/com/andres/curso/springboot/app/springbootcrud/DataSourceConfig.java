@@ -0,0 +1,55 @@
+package com.andres.curso.springboot.app.springbootcrud;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+// Limite de acceso concurrente a la base de datos (perfil virtual). Solo se activa si se define
+// db.concurrency.max-permits y las peticiones corren realmente en hilos virtuales (Java 21+ con
+// spring.threads.virtual.enabled); envuelve el DataSource de Hikari en un BoundedDataSource.
+@Configuration
+@ConditionalOnProperty("db.concurrency.max-permits")
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DataSourceConfig {
+
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    int maxPermits = environment.getRequiredProperty("db.concurrency.max-permits", Integer.class);
+                    Duration acquireTimeout = environment.getProperty("db.concurrency.acquire-timeout",
+                            Duration.class, Duration.ofSeconds(5));
+                    return new BoundedDataSource(dataSource, maxPermits, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Permisos libres e hilos esperando, publicados en /actuator/metrics (db.concurrency.*)
+    @Bean
+    MeterBinder boundedDataSourceMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BoundedDataSource bounded) {
+                Gauge.builder("db.concurrency.available", bounded, BoundedDataSource::availablePermits)
+                        .register(registry);
+                Gauge.builder("db.concurrency.waiting", bounded, BoundedDataSource::waitingThreads)
+                        .register(registry);
+            }
+        };
+    }
+}
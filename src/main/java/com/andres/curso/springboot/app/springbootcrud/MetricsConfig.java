@@ -0,0 +1,19 @@
+package com.andres.curso.springboot.app.springbootcrud;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Metricas propias de la aplicacion. Se publican en /actuator/metrics (requiere un JWT valido) y en
+// formato Prometheus en /actuator/prometheus, abierto para que Prometheus pueda leerlo sin token.
+@Configuration
+public class MetricsConfig {
+
+    // Habilita @Timed en los servicios (ProductServiceImpl, UserServiceImpl)
+    @Bean
+    TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,21 @@
+package com.andres.curso.springboot.app.springbootcrud;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// El perfil virtual solo tiene sentido con Java 21 o superior: en Java 17 Spring Boot ignora
+// spring.threads.virtual.enabled y la aplicacion quedaria con el pool de Tomcat pero con el pool de
+// conexiones y los tiempos de espera pensados para hilos virtuales. Se detiene el arranque.
+@Configuration
+@Profile("virtual")
+public class VirtualThreadsConfig {
+
+    public static final int MIN_JAVA_VERSION = 21;
+
+    public VirtualThreadsConfig() {
+        if (Runtime.version().feature() < MIN_JAVA_VERSION) {
+            throw new IllegalStateException("El perfil virtual requiere Java " + MIN_JAVA_VERSION
+                    + " o superior (version actual: " + Runtime.version() + ")");
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package com.andres.curso.springboot.app.springbootcrud.controllers;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
@@ -17,40 +32,179 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 // import com.andres.curso.springboot.app.springbootcrud.ProductValidation;
+import com.andres.curso.springboot.app.springbootcrud.WebConfig;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductFilter;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPageQuery;
 import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+import com.andres.curso.springboot.app.springbootcrud.services.ProductResponseCache;
 import com.andres.curso.springboot.app.springbootcrud.services.ProductService;
+import com.andres.curso.springboot.app.springbootcrud.services.ProductServiceImpl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
 @CrossOrigin(origins="http://localhost:4200", originPatterns = "*")
-@RequestMapping("/api/ ")
+@RequestMapping("/api")
 public class ProductController {
+
+    // Formato del ETag de un producto: "product-<id>-<version>" en JSON, con "-cbor" o "-smile" al
+    // final para los otros formatos. If-Match acepta el ETag de cualquiera de los tres
+    private static final Pattern PRODUCT_ETAG = Pattern.compile("\"product-(\\d+)-(\\d+)(?:-cbor|-smile)?\"");
     
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Con true un PUT sin If-Match responde 428. Por defecto false mientras los clientes migran:
+    // sin If-Match se actualiza sin comprobar la version, como antes
+    @Value("${products.update.require-if-match:false}")
+    private boolean requireIfMatch;
+
+    // Respuestas ya serializadas de /{id} y /lista
+    @Autowired
+    private ProductResponseCache responseCache;
+
     // @Autowired
     // private ProductValidation valdation;
 
-    @GetMapping("lista")
+    // Listado paginado por cursor: ?size=20&sort=asc|desc&cursor=<nextCursor de la pagina anterior>
+    // Filtros opcionales: minPrice, maxPrice y name (comienzo del nombre); orden con orderBy=id|price|name.
+    // Las paginas siguientes se piden con los mismos filtros y el cursor (que ya lleva orden y direccion)
+    @GetMapping("/lista")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public List<Product> list() {
-        return service.findAll();
+    public ResponseEntity<?> list(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductServiceImpl.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(defaultValue = ProductServiceImpl.SORT_BY_ID) String orderBy,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String name, WebRequest request, HttpServletRequest servletRequest)
+            throws IOException {
+        // Los parametros se validan antes de comparar el ETag: una peticion invalida responde 400 aunque
+        // el ETag coincida, y el cuerpo de error no lleva el ETag del catalogo
+        ProductPageQuery pageQuery;
+        try {
+            pageQuery = service.pageQuery(new ProductFilter(minPrice, maxPrice, name), cursor, size, orderBy, sort);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errors = new HashMap<>();
+            errors.put("message", "Los parametros del listado no son validos (cursor, sort, orderBy o filtros)");
+            errors.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errors);
+        }
+        // Ningun formato aceptado (JSON, CBOR o Smile): 406
+        MediaType format = responseCache.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (format == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        // Si el catalogo no cambio desde el ETag que envia el cliente (para este formato) se responde
+        // 304 sin leer productos
+        String etag = service.catalogVersion().toEtag(representation(format));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        // La pagina ya serializada para estos parametros y esta version del catalogo se reutiliza
+        String query = Objects.toString(servletRequest.getQueryString(), "");
+        byte[] body = responseCache.getPage(format, query, etag);
+        if (body == null) {
+            body = responseCache.putPage(format, query, etag, service.findPage(pageQuery));
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(etag)
+                .contentType(format)
+                .body(body);
     }
     
+    // Busqueda por sku, name y description: ?q=<palabras>&page=0&size=20. Cada palabra puede ser
+    // completa o el comienzo de una palabra; los resultados vienen ordenados por relevancia
+    @GetMapping("/products/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<?> search(@RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + ProductServiceImpl.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return ResponseEntity.ok(service.search(q, page, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errors = new HashMap<>();
+            errors.put("message", "Los parametros de busqueda no son validos");
+            errors.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errors);
+        }
+    }
+
+    // Exporta el catalogo completo como NDJSON (un producto JSON por linea), escribiendo
+    // cada fila en la respuesta a medida que se lee de la base de datos
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            service.forEachProduct(product -> {
+                try {
+                    writer.writeValue(out, product);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<?> view(@PathVariable Long id) {
-        Optional<Product> productOptional = service.findById(id);
-        if (productOptional.isPresent()) {
-            return ResponseEntity.ok(productOptional.orElseThrow());
+    public ResponseEntity<?> view(@PathVariable Long id, WebRequest request) throws IOException {
+        MediaType format = responseCache.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (format == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
         }
-        return ResponseEntity.notFound().build();
+        // Primero se consulta solo la version: si coincide con If-None-Match se responde 304
+        Optional<Long> version = service.findVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(productEtag(id, version.orElseThrow(), format))) {
+            return null;
+        }
+        // Si esta version ya se serializo en este formato se responde con esos bytes sin cargar la entidad
+        byte[] body = responseCache.getProduct(format, id, version.orElseThrow());
+        Long bodyVersion = version.orElseThrow();
+        if (body == null) {
+            Optional<Product> productOptional = service.findById(id);
+            if (productOptional.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            Product product = productOptional.orElseThrow();
+            body = responseCache.putProduct(format, product);
+            bodyVersion = product.getVersion();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(productEtag(id, bodyVersion, format))
+                .contentType(format)
+                .body(body);
     }
     
     @PostMapping
@@ -60,33 +214,155 @@ public class ProductController {
         if (result.hasFieldErrors()) {
             return validation(result);
         }
-        return ResponseEntity.status(HttpStatus.CREATED).body(service.save(product));
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(service.save(product));
+        } catch (DataIntegrityViolationException e) {
+            return skuConflict(e);
+        }
+    }
+
+    // Importacion masiva desde un arreglo JSON (o CBOR/Smile) de productos; devuelve el resultado de cada fila
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE,
+            WebConfig.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importJson(@RequestBody List<Product> products) {
+        return ResponseEntity.ok(service.importProducts(products));
+    }
+
+    // Importacion masiva desde CSV con encabezado (sku,name,price,description en cualquier orden)
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importCsv(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(service.importProducts(readCsv(request.getReader())));
     }
 
+    // Actualizacion con bloqueo optimista: el cliente envia en If-Match el ETag que recibio.
+    // Sin If-Match (o con "If-Match: *") se actualiza sin comprobar la version, salvo que
+    // products.update.require-if-match este activo: entonces sin If-Match se responde 428.
+    // 409 si otro cambio llego antes; con "Prefer: return=minimal" se responde 204 sin cuerpo.
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> update(@Valid @RequestBody Product product, BindingResult result, @PathVariable Long id) {
+    public ResponseEntity<?> update(@Valid @RequestBody Product product, BindingResult result, @PathVariable Long id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         // valdation.validate(product, result);
         if (result.hasFieldErrors()) {
             return validation(result);
         }
-        Optional<Product> productOptional = service.update(id, product);
-        if (productOptional.isPresent()) {
-            return ResponseEntity.status(HttpStatus.CREATED).body(productOptional.orElseThrow());
+
+        if ((ifMatch == null || ifMatch.isBlank()) && requireIfMatch) {
+            Map<String, String> body = new HashMap<>();
+            body.put("message", "Debe enviar el ETag del producto en el encabezado If-Match");
+            body.put("error", "Falta el encabezado If-Match");
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(body);
         }
-        return ResponseEntity.notFound().build();
+
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.isBlank() && !ifMatch.trim().equals("*")) {
+            Matcher matcher = PRODUCT_ETAG.matcher(ifMatch.trim());
+            if (!matcher.matches() || !Long.valueOf(matcher.group(1)).equals(id)) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            expectedVersion = Long.valueOf(matcher.group(2));
+        }
+
+        Optional<Product> productOptional;
+        try {
+            productOptional = service.update(id, expectedVersion, product);
+        } catch (OptimisticLockingFailureException e) {
+            return versionConflict(e);
+        } catch (DataIntegrityViolationException e) {
+            return skuConflict(e);
+        }
+        if (productOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Product updated = productOptional.orElseThrow();
+        if (prefer != null && prefer.contains("return=minimal")) {
+            return ResponseEntity.noContent().eTag(productEtag(id, updated.getVersion())).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(productEtag(id, updated.getVersion()))
+                .body(updated);
     }
 
+    // Por defecto se responde 204 sin cuerpo; con "Prefer: return=representation" se devuelve el
+    // producto borrado como antes. Si otra peticion lo cambio mientras se borraba se responde 409.
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> delete(@PathVariable Long id) {
-        Optional<Product> productOptional = service.delete(id);
-        if (productOptional.isPresent()) {
-            return ResponseEntity.ok(productOptional.orElseThrow());
+    public ResponseEntity<?> delete(@PathVariable Long id,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
+        try {
+            if (wantsRepresentation(prefer)) {
+                Optional<Product> productOptional = service.delete(id);
+                if (productOptional.isPresent()) {
+                    return ResponseEntity.ok(productOptional.orElseThrow());
+                }
+                return ResponseEntity.notFound().build();
+            }
+            if (service.deleteById(id)) {
+                return ResponseEntity.noContent().build();
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return versionConflict(e);
         }
         return ResponseEntity.notFound().build();
     }
 
+    // Borrado masivo a partir de un arreglo JSON de ids; las filas borradas solo se devuelven
+    // con "Prefer: return=representation"
+    @PostMapping(value = "/delete", consumes = { MediaType.APPLICATION_JSON_VALUE,
+            WebConfig.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deleteAll(@RequestBody List<Long> ids,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
+        return ResponseEntity.ok(service.deleteAll(ids, wantsRepresentation(prefer)));
+    }
+
+    private boolean wantsRepresentation(String prefer) {
+        return prefer != null && prefer.contains("return=representation");
+    }
+
+    // ETag fuerte de un producto: cambia cada vez que cambia su version. Las respuestas de PUT no
+    // negocian formato y llevan el ETag de la representacion JSON
+    private String productEtag(Long id, Long version) {
+        return productEtag(id, version, MediaType.APPLICATION_JSON);
+    }
+
+    // Cada formato es una representacion distinta con su propio ETag: un If-None-Match con el ETag
+    // de la respuesta JSON no puede dar 304 a un pedido CBOR
+    private String productEtag(Long id, Long version, MediaType format) {
+        return "\"product-" + id + "-" + version + representation(format) + "\"";
+    }
+
+    private static String representation(MediaType format) {
+        if (WebConfig.APPLICATION_CBOR_VALUE.equals(format.toString())) {
+            return "-cbor";
+        }
+        if (WebConfig.APPLICATION_SMILE_VALUE.equals(format.toString())) {
+            return "-smile";
+        }
+        return "";
+    }
+
+    // 409 cuando el producto cambio entre la lectura y la escritura (bloqueo optimista)
+    private ResponseEntity<?> versionConflict(OptimisticLockingFailureException e) {
+        Map<String, String> body = new HashMap<>();
+        body.put("message", "El producto fue modificado por otro usuario, vuelva a leerlo e intente de nuevo");
+        body.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    // La restriccion unica de sku fallo en la base de datos: otra peticion (o instancia) creo el mismo
+    // SKU despues de que la validacion lo diera por libre
+    private ResponseEntity<?> skuConflict(DataIntegrityViolationException e) {
+        Map<String, String> body = new HashMap<>();
+        body.put("message", "Ya existe un producto con ese sku");
+        body.put("error", NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     private ResponseEntity<?> validation(BindingResult result) {
         Map<String, String> errors = new HashMap<>();
 
@@ -95,4 +371,87 @@ public class ProductController {
         });
         return ResponseEntity.badRequest().body(errors);
     }
+
+    // Convierte cada linea del CSV en un Product; los valores que no se pueden convertir quedan
+    // en null para que la validacion los reporte en el resultado de su fila
+    static List<Product> readCsv(Reader reader) throws IOException {
+        List<Product> products = new ArrayList<>();
+        List<List<String>> records = readCsvRecords(reader);
+        if (records.isEmpty()) {
+            return products;
+        }
+        List<String> header = records.get(0);
+        for (List<String> values : records.subList(1, records.size())) {
+            Product product = new Product();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                String value = values.get(i);
+                switch (header.get(i).trim().toLowerCase()) {
+                    case "sku" -> product.setSku(value);
+                    case "name" -> product.setName(value);
+                    case "description" -> product.setDescription(value);
+                    case "price" -> {
+                        try {
+                            product.setPrice(Integer.valueOf(value.trim()));
+                        } catch (NumberFormatException e) {
+                            product.setPrice(null);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
+    // Separa el CSV en registros y valores por comas respetando los valores entre comillas
+    // ("a, b", "" como comilla y saltos de linea dentro de las comillas). Omite las lineas vacias
+    static List<List<String>> readCsvRecords(Reader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean pendingQuote = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (pendingQuote) {
+                pendingQuote = false;
+                if (c == '"') {
+                    current.append('"');
+                    continue;
+                }
+                quoted = false;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    pendingQuote = true;
+                } else {
+                    current.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else if (c == '\n') {
+                endCsvRecord(records, values, current);
+                values = new ArrayList<>();
+            } else if (c != '\r') {
+                current.append((char) c);
+            }
+        }
+        endCsvRecord(records, values, current);
+        return records;
+    }
+
+    private static void endCsvRecord(List<List<String>> records, List<String> values, StringBuilder current) {
+        if (values.isEmpty() && current.toString().isBlank()) {
+            current.setLength(0);
+            return;
+        }
+        values.add(current.toString());
+        current.setLength(0);
+        records.add(values);
+    }
 }
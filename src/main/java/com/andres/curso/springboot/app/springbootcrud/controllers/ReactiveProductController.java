@@ -0,0 +1,52 @@
+package com.andres.curso.springboot.app.springbootcrud.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+import com.andres.curso.springboot.app.springbootcrud.services.ProductServiceImpl;
+import com.andres.curso.springboot.app.springbootcrud.services.ReactiveProductService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Lecturas de productos sin bloqueo: Spring MVC procesa los Flux/Mono de forma asincrona, asi el hilo
+// de Tomcat se libera mientras se espera a la base de datos o a un cliente lento. Mismas reglas de
+// seguridad (JWT) que ProductController.
+@RestController
+@CrossOrigin(origins = "http://localhost:4200", originPatterns = "*")
+@RequestMapping("/api/reactive/products")
+public class ReactiveProductController {
+
+    @Autowired
+    private ReactiveProductService service;
+
+    // Flujo NDJSON: cada producto se escribe en cuanto llega y se pide el siguiente solo cuando el
+    // cliente termino de recibir el anterior. Sin limit se emite todo el catalogo; si se indica, se
+    // ajusta al mismo rango que el listado paginado (1 a MAX_PAGE_SIZE)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public Flux<Product> list(@RequestParam(defaultValue = "0") Long after,
+            @RequestParam(required = false) Integer limit) {
+        if (limit != null) {
+            limit = Math.min(Math.max(limit, 1), ProductServiceImpl.MAX_PAGE_SIZE);
+        }
+        return service.findAll(after, limit);
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public Mono<ResponseEntity<Product>> view(@PathVariable Long id) {
+        return service.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
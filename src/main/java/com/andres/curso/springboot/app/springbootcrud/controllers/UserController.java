@@ -1,7 +1,6 @@
 package com.andres.curso.springboot.app.springbootcrud.controllers;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,10 +13,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.andres.curso.springboot.app.springbootcrud.dto.UserPage;
 import com.andres.curso.springboot.app.springbootcrud.entities.User;
 import com.andres.curso.springboot.app.springbootcrud.services.UserService;
+import com.andres.curso.springboot.app.springbootcrud.services.UserServiceImpl;
 
 import jakarta.validation.Valid;
 
@@ -29,9 +31,11 @@ public class UserController {
     @Autowired
     private UserService service;
 
+    // Listado paginado de usuarios: ?page=0&size=20 (maximo 100 por pagina)
     @GetMapping
-    public List<User> list() {
-        return service.findAll();
+    public UserPage list(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + UserServiceImpl.DEFAULT_PAGE_SIZE) int size) {
+        return service.findPage(page, size);
     }
 
     @PreAuthorize("hasRole('ADMIN')") // Solo los usuarios con rol ADMIN pueden acceder a este método
@@ -0,0 +1,12 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+// Version de todo el catalogo de productos: cambia con cada alta, baja o cambio (ver ProductCatalogVersion)
+public record CatalogVersion(long version) {
+
+    // ETag debil (W/): Tomcat no comprime respuestas con ETag fuerte. representation distingue el
+    // formato ("" para JSON, "-cbor", "-smile"): la comparacion debil de If-None-Match no debe
+    // confundir una respuesta JSON con una CBOR
+    public String toEtag(String representation) {
+        return "W/\"catalog-" + version + representation + "\"";
+    }
+}
@@ -0,0 +1,9 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+// Resumen de un borrado masivo; deletedProducts solo viene si el cliente pidio las filas borradas
+public record ProductDeleteReport(int requested, int deleted, List<Product> deletedProducts) {
+}
@@ -0,0 +1,10 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+// Filtros opcionales del listado de productos: rango de precio (inclusivo) y comienzo del nombre.
+// Un valor null significa que ese filtro no se aplica.
+public record ProductFilter(Integer minPrice, Integer maxPrice, String namePrefix) {
+
+    public boolean isEmpty() {
+        return minPrice == null && maxPrice == null && (namePrefix == null || namePrefix.isEmpty());
+    }
+}
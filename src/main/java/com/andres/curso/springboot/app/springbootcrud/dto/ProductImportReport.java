@@ -0,0 +1,7 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+// Resumen de una importacion masiva con el resultado de cada fila
+public record ProductImportReport(int total, int created, int rejected, List<ProductImportResult> results) {
+}
@@ -0,0 +1,18 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import java.util.Map;
+
+// Resultado de importar una fila: CREATED con el id generado, o REJECTED con los errores por campo
+public record ProductImportResult(int row, String sku, String status, Long id, Map<String, String> errors) {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    public static ProductImportResult created(int row, String sku, Long id) {
+        return new ProductImportResult(row, sku, CREATED, id, null);
+    }
+
+    public static ProductImportResult rejected(int row, String sku, Map<String, String> errors) {
+        return new ProductImportResult(row, sku, REJECTED, null, errors);
+    }
+}
@@ -0,0 +1,10 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+// Pagina de productos: el contenido y el cursor opaco para pedir la siguiente pagina
+// (nextCursor es null cuando ya no hay mas productos)
+public record ProductPage(List<Product> content, int size, String nextCursor) {
+}
@@ -0,0 +1,9 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import org.springframework.data.domain.Sort;
+
+// Parametros del listado ya validados: filtros, orden y, si se pidio una pagina siguiente, la ultima
+// fila entregada (lastId y el valor del campo de orden) tomada del cursor
+public record ProductPageQuery(ProductFilter filter, String orderBy, Sort.Direction direction,
+        Long lastId, String lastValue, int pageSize) {
+}
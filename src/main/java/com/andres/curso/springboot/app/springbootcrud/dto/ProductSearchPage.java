@@ -0,0 +1,9 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+// Pagina de resultados de la busqueda, ordenados por relevancia
+public record ProductSearchPage(List<Product> content, int page, int size, long totalElements) {
+}
@@ -0,0 +1,7 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+// Pagina del listado de usuarios
+public record UserPage(List<UserSummary> content, int page, int size, long totalElements, int totalPages) {
+}
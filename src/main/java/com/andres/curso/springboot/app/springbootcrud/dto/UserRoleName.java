@@ -0,0 +1,5 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+// Proyeccion (id de usuario, nombre de rol) que se lee con una sola consulta para toda una pagina
+public record UserRoleName(Long userId, String roleName) {
+}
@@ -0,0 +1,7 @@
+package com.andres.curso.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+// Vista de un usuario para el listado: solo los datos publicos y los nombres de sus roles
+public record UserSummary(Long id, String username, boolean enabled, List<String> roles) {
+}
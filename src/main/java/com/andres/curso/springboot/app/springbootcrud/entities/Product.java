@@ -3,11 +3,22 @@ package com.andres.curso.springboot.app.springbootcrud.entities;
 import com.andres.curso.springboot.app.springbootcrud.validation.IsExistsDb;
 import com.andres.curso.springboot.app.springbootcrud.validation.IsRequired;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 // import jakarta.validation.constraints.NotBlank;
 // import jakarta.validation.constraints.NotEmpty;
@@ -15,10 +26,35 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name="products")
+// Indices para filtrar y ordenar el listado por precio o por nombre; el id al final sirve de
+// desempate del keyset, asi cada pagina es un rango del indice sin ordenar en memoria
+// El SKU es unico en la base de datos: la validacion @IsExistsDb es solo un aviso temprano (otra
+// instancia o una transaccion sin commit pueden crear el mismo SKU al mismo tiempo)
+@Table(name = Product.TABLE_NAME, indexes = {
+    @Index(name = "idx_products_price", columnList = "price, id"),
+    @Index(name = "idx_products_name", columnList = "name, id")
+}, uniqueConstraints = @UniqueConstraint(name = Product.SKU_UNIQUE_CONSTRAINT, columnNames = "sku"))
+// Cache de segundo nivel (solo activa con el perfil l2cache, region "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "products")
 public class Product {
+
+    // Tabla de productos; tambien la usan las consultas R2DBC de ReactiveProductServiceImpl
+    public static final String TABLE_NAME = "products";
+
+    public static final String SKU_UNIQUE_CONSTRAINT = "uk_products_sku";
+
+    public static final int DESCRIPTION_LENGTH = 255;
+
+    // Los ids se reservan en bloques desde la tabla id_generators (optimizador pooled-lo),
+    // asi Hibernate puede agrupar los INSERT en batch; con IDENTITY el batch se desactiva.
+    public static final String ID_GENERATOR_TABLE = "id_generators";
+    public static final String ID_GENERATOR_SEGMENT = "products";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_id")
+    @TableGenerator(name = "product_id", table = ID_GENERATOR_TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = ID_GENERATOR_SEGMENT, allocationSize = 50)
     private Long id;
 
     @IsRequired
@@ -33,9 +69,19 @@ public class Product {
     @NotNull(message = "{NotNull.product.price}")
     private Integer price;
 
+    // Mismo largo que la columna: una descripcion mas larga se rechaza al validar y no en el INSERT
     @IsRequired
+    @Size(max = DESCRIPTION_LENGTH)
+    @Column(length = DESCRIPTION_LENGTH)
     private String description;
 
+    // Version para bloqueo optimista; Hibernate la incrementa en cada UPDATE y con ella se
+    // calcula el ETag. Solo se puede leer desde el JSON.
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -66,6 +112,12 @@ public class Product {
     public void setSku(String sku) {
         this.sku = sku;
     }
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 
     
 }
@@ -0,0 +1,43 @@
+package com.andres.curso.springboot.app.springbootcrud.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Fila unica con la version del catalogo de productos (ETag de /api/lista). Cada alta, cambio o
+// baja de productos la incrementa en la misma transaccion, asi leerla es una consulta por clave
+// primaria en lugar de recorrer toda la tabla products.
+@Entity
+@Table(name = "product_catalog")
+public class ProductCatalog {
+
+    public static final Long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long version;
+
+    public ProductCatalog() {
+    }
+
+    public ProductCatalog(Long id, Long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
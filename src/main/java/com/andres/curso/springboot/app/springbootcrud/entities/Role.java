@@ -3,8 +3,12 @@ package com.andres.curso.springboot.app.springbootcrud.entities;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -15,6 +19,9 @@ import jakarta.persistence.Table;
 
 @Entity
 @Table(name="roles")
+// Cache de segundo nivel (solo activa con el perfil l2cache, region "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
 public class Role {
     
     @Id
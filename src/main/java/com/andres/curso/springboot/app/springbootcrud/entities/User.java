@@ -3,6 +3,9 @@ package com.andres.curso.springboot.app.springbootcrud.entities;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.andres.curso.springboot.app.springbootcrud.validation.ExistsByUsername;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -41,6 +44,8 @@ public class User {
     // Evitamos que se serialicen propiedades problemáticas de Hibernate en JSON
     @JsonIgnoreProperties({"users", "handler", "hibernateLazyInitializer"})
     // Relación muchos a muchos con la entidad Role
+    // Los ids de los roles de cada usuario se guardan en la cache de segundo nivel (region "userRoles")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "userRoles")
     @ManyToMany
     @JoinTable(
         name = "users_roles", // Nombre de la tabla intermedia
@@ -0,0 +1,20 @@
+package com.andres.curso.springboot.app.springbootcrud.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.ProductCatalog;
+
+public interface ProductCatalogRepository extends CrudRepository<ProductCatalog, Long> {
+
+    @Query("select c.version from ProductCatalog c where c.id = ?1")
+    Optional<Long> findVersionById(Long id);
+
+    // Incrementa la version dentro de la transaccion de escritura; devuelve 0 si la fila no existe
+    @Modifying
+    @Query("update ProductCatalog c set c.version = c.version + 1 where c.id = ?1")
+    int incrementVersion(Long id);
+}
@@ -1,9 +1,67 @@
 package com.andres.curso.springboot.app.springbootcrud.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
 import com.andres.curso.springboot.app.springbootcrud.entities.Product;
 
-public interface ProductRepository extends CrudRepository<Product, Long> {
+import jakarta.persistence.QueryHint;
+
+// JpaSpecificationExecutor: listado con filtros y orden opcionales (ver ProductSpecifications)
+public interface ProductRepository extends CrudRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    // Filas que el driver trae por cada viaje a la base de datos al recorrer un Stream
+    String STREAM_FETCH_SIZE = "500";
+
     boolean existsBySku(String sku);
+
+    // Implementado por SimpleJpaRepository: guarda y ejecuta el INSERT/UPDATE en el momento, con los
+    // errores de la base de datos ya traducidos (DataIntegrityViolationException para un SKU repetido)
+    <S extends Product> S saveAndFlush(S product);
+
+    // Tambien de SimpleJpaRepository: ejecuta en el momento los cambios pendientes (por ejemplo un
+    // delete) para que un conflicto de version se lance traducido dentro del servicio
+    void flush();
+
+    // Solo la version del producto, para responder 304 sin cargar la entidad
+    @Query("select p.version from Product p where p.id = ?1")
+    Optional<Long> findVersionById(Long id);
+
+    // Borrado masivo en una sola sentencia: delete ... where id in (...). Al ser JPQL, Hibernate
+    // invalida toda la region "products" de la cache de segundo nivel; los borrados de un solo
+    // producto pasan por la entidad (ver ProductServiceImpl.deleteById)
+    @Modifying
+    @Query("delete from Product p where p.id in ?1")
+    int deleteRowsByIds(Collection<Long> ids);
+
+    // Paginacion por cursor (keyset): solo se leen las filas posteriores al ultimo id entregado.
+    // Con el perfil l2cache los resultados quedan en la cache de consultas.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Product> findByIdGreaterThan(Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Product> findByIdLessThan(Long id, Pageable pageable);
+
+    // Recorre todos los productos sin cargarlos en memoria; debe usarse dentro de una transaccion
+    // y cerrarse al terminar (try-with-resources)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select p.sku from Product p where p.sku is not null")
+    Stream<String> streamAllSkus();
 }
@@ -0,0 +1,68 @@
+package com.andres.curso.springboot.app.springbootcrud.repositories;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductFilter;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+import jakarta.persistence.criteria.Path;
+
+// Condiciones del listado filtrado de productos. Solo se agregan al WHERE los filtros que vienen
+// informados, asi la consulta generada puede usar los indices de price y name (ver Product).
+public final class ProductSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductFilter filter) {
+        Specification<Product> spec = Specification.where(null);
+        if (filter.minPrice() != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), filter.maxPrice()));
+        }
+        if (filter.namePrefix() != null && !filter.namePrefix().isEmpty()) {
+            // name like 'prefijo%' (con % y _ escapados) se resuelve con un rango sobre el indice
+            String pattern = escapeLike(filter.namePrefix()) + "%";
+            spec = spec.and((root, query, cb) -> cb.like(root.get("name"), pattern, LIKE_ESCAPE));
+        }
+        return spec;
+    }
+
+    // Condicion de keyset para continuar despues de la ultima fila entregada, ordenando por
+    // (campo, id): campo > ultimo or (campo = ultimo and id > ultimoId), o al reves si es descendente
+    public static <T extends Comparable<? super T>> Specification<Product> after(String field,
+            Sort.Direction direction, T lastValue, Long lastId) {
+        return (root, query, cb) -> {
+            Path<T> value = root.get(field);
+            Path<Long> id = root.get("id");
+            if (direction.isAscending()) {
+                return cb.or(cb.greaterThan(value, lastValue),
+                        cb.and(cb.equal(value, lastValue), cb.greaterThan(id, lastId)));
+            }
+            return cb.or(cb.lessThan(value, lastValue),
+                    cb.and(cb.equal(value, lastValue), cb.lessThan(id, lastId)));
+        };
+    }
+
+    public static Specification<Product> idAfter(Sort.Direction direction, Long lastId) {
+        return (root, query, cb) -> direction.isAscending()
+                ? cb.greaterThan(root.get("id"), lastId)
+                : cb.lessThan(root.get("id"), lastId);
+    }
+
+    private static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 4);
+        for (char c : text.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -1,13 +1,31 @@
 package com.andres.curso.springboot.app.springbootcrud.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import com.andres.curso.springboot.app.springbootcrud.dto.UserRoleName;
 import com.andres.curso.springboot.app.springbootcrud.entities.User;
 
 public interface UserRepository extends CrudRepository<User, Long>{
     boolean existsByUsername(String username);
 
     Optional<User> findByUsername(String username);
+
+    // Trae el usuario y sus roles en una sola consulta (login)
+    @Query("select u from User u left join fetch u.roles where u.username = ?1")
+    Optional<User> findByUsernameWithRoles(String username);
+
+    // Pagina de usuarios sin sus roles (los roles se leen aparte con findRoleNamesByUserIds)
+    Page<User> findAllBy(Pageable pageable);
+
+    // Nombres de los roles de varios usuarios en una sola consulta
+    @Query("select new com.andres.curso.springboot.app.springbootcrud.dto.UserRoleName(u.id, r.name) "
+            + "from User u join u.roles r where u.id in ?1")
+    List<UserRoleName> findRoleNamesByUserIds(Collection<Long> userIds);
 }
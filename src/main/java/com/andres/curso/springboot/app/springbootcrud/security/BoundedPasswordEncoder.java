@@ -0,0 +1,61 @@
+package com.andres.curso.springboot.app.springbootcrud.security;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// PasswordEncoder que verifica los passwords (BCrypt) en un pool propio, acotado y con cola
+// limitada. Asi un pico de logins no ocupa CPU en todos los hilos de Tomcat: como maximo hay
+// tantos hash en paralelo como hilos del pool, y si la cola esta llena se rechaza de inmediato.
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ExecutorService executor;
+    private final Timer hashTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ExecutorService executor, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.hashTimer = Timer.builder("login.password.verify")
+                .description("Tiempo de verificacion del password en el pool de login")
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try {
+            return executor.submit(() -> hashTimer.record(() -> delegate.matches(rawPassword, encodedPassword)))
+                    .get();
+        } catch (RejectedExecutionException e) {
+            throw new LoginRejectedException("El servicio de login esta saturado, intente mas tarde", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginRejectedException("La verificacion del password fue interrumpida", e);
+        } catch (ExecutionException e) {
+            // Se relanza la excepcion original del encoder (p. ej. una AuthenticationException) para
+            // que el filtro de login la maneje igual que si la verificacion fuera en el mismo hilo
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
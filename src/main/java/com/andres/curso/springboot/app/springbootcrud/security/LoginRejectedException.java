@@ -0,0 +1,10 @@
+package com.andres.curso.springboot.app.springbootcrud.security;
+
+// Se lanza cuando el pool de verificacion de passwords esta saturado; el filtro de login la
+// convierte en una respuesta 503 inmediata en lugar de dejar la peticion esperando
+public class LoginRejectedException extends RuntimeException {
+
+    public LoginRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
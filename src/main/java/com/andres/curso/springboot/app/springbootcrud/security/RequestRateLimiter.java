@@ -0,0 +1,91 @@
+package com.andres.curso.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Limite de peticiones por usuario autenticado y por IP (peticiones anonimas: login, registro).
+// Cada llave tiene un token bucket de "capacity" peticiones que se recarga a "refill-per-second".
+//
+// El bucket es un solo AtomicLong con el instante en que quedaria vacio (algoritmo GCRA, equivalente
+// a un token bucket): consumir un token es sumarle un intervalo con compareAndSet, sin locks y sin
+// crear objetos. Los buckets viven en caches Caffeine (lecturas sin lock, buffers repartidos entre
+// hilos) que descartan los que no se usan desde hace idle-timeout y limitan la cantidad de llaves.
+@Component
+public class RequestRateLimiter {
+
+    private final Cache<String, AtomicLong> userBuckets;
+    private final Cache<String, AtomicLong> ipBuckets;
+
+    // Tiempo entre tokens y rafaga maxima (capacity * intervalo), en nanosegundos
+    private final long userInterval;
+    private final long userBurst;
+    private final long ipInterval;
+    private final long ipBurst;
+
+    // Un bucket nuevo empieza lleno; se reutiliza la misma funcion para no crear una lambda por peticion
+    private final Function<String, AtomicLong> newBucket = key -> new AtomicLong(System.nanoTime());
+
+    public RequestRateLimiter(MeterRegistry registry,
+            @Value("${security.rate-limit.user.capacity:200}") long userCapacity,
+            @Value("${security.rate-limit.user.refill-per-second:100}") double userRefill,
+            @Value("${security.rate-limit.ip.capacity:20}") long ipCapacity,
+            @Value("${security.rate-limit.ip.refill-per-second:2}") double ipRefill,
+            @Value("${security.rate-limit.idle-timeout:10m}") Duration idleTimeout,
+            @Value("${security.rate-limit.max-buckets:100000}") long maxBuckets) {
+        this.userInterval = (long) (TimeUnit.SECONDS.toNanos(1) / userRefill);
+        this.userBurst = userCapacity * userInterval;
+        this.ipInterval = (long) (TimeUnit.SECONDS.toNanos(1) / ipRefill);
+        this.ipBurst = ipCapacity * ipInterval;
+        this.userBuckets = buckets(idleTimeout, userBurst, maxBuckets);
+        this.ipBuckets = buckets(idleTimeout, ipBurst, maxBuckets);
+        Gauge.builder("security.ratelimit.buckets", userBuckets, Cache::estimatedSize).tag("key", "user")
+                .register(registry);
+        Gauge.builder("security.ratelimit.buckets", ipBuckets, Cache::estimatedSize).tag("key", "ip")
+                .register(registry);
+    }
+
+    // Devuelve 0 si la peticion se permite o los nanosegundos que faltan para el proximo token
+    public long acquireForUser(String username) {
+        return acquire(userBuckets.get(username, newBucket), userInterval, userBurst, System.nanoTime());
+    }
+
+    public long acquireForIp(String address) {
+        return acquire(ipBuckets.get(address, newBucket), ipInterval, ipBurst, System.nanoTime());
+    }
+
+    // now se recibe como parametro para poder probar el calculo con instantes fijos
+    static long acquire(AtomicLong bucket, long interval, long burst, long now) {
+        while (true) {
+            long emptyAt = bucket.get();
+            // Si el instante ya paso el bucket esta lleno: se cuenta desde ahora
+            long next = (emptyAt - now < 0 ? now : emptyAt) + interval;
+            long excess = next - now - burst;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(emptyAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Un bucket sin uso durante el tiempo que tarda en llenarse ya esta lleno: descartarlo no
+    // regala peticiones, por eso la expiracion nunca es menor que ese tiempo
+    private static Cache<String, AtomicLong> buckets(Duration idleTimeout, long burst, long maxBuckets) {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(Math.max(idleTimeout.toNanos(), burst), TimeUnit.NANOSECONDS)
+                .maximumSize(maxBuckets)
+                .build();
+    }
+}
@@ -1,19 +1,26 @@
 package com.andres.curso.springboot.app.springbootcrud.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -21,8 +28,19 @@ import org.springframework.web.filter.CorsFilter;
 
 import com.andres.curso.springboot.app.springbootcrud.security.filter.JwtAuthenticationFilter;
 import com.andres.curso.springboot.app.springbootcrud.security.filter.JwtValidationFilter;
+import com.andres.curso.springboot.app.springbootcrud.security.filter.RateLimitFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.servlet.DispatcherType;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 // Indicamos que esta clase es una clase de configuración de Spring
 @Configuration
@@ -34,30 +52,85 @@ public class SpringSecurityConfig {
     @Autowired
     private AuthenticationConfiguration authenticationConfiguration;
 
+    // Cache de tokens JWT ya verificados que usa el filtro de validacion
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    // Registro de metricas para los filtros de login y validacion del JWT
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Limite de peticiones por usuario y por IP (ver RequestRateLimiter)
+    @Autowired
+    private RequestRateLimiter rateLimiter;
+
+    @Value("${security.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    // Mientras dure la migracion se aceptan tokens con el claim de roles en el formato antiguo
+    @Value("${security.jwt.accept-legacy-authorities:true}")
+    private boolean acceptLegacyAuthorities;
+
     // Definimos un bean que proporciona el AuthenticationManager, necesario para autenticar usuarios
     @Bean
     AuthenticationManager authenticationManager() throws Exception {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    // Pool dedicado a verificar passwords en el login: hilos fijos y cola acotada. Si se llena,
+    // la tarea se rechaza (AbortPolicy) y el login responde 503 sin esperar.
+    // Sus metricas (cola, hilos activos, tareas) se publican con el nombre "login"
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService loginExecutor(MeterRegistry registry,
+            @Value("${security.login.pool-size:4}") int poolSize,
+            @Value("${security.login.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("login-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(registry, executor, "login");
+    }
+
+    @Bean
+    PasswordEncoder passwordEncoder(ExecutorService loginExecutor, MeterRegistry registry,
+            @Value("${security.login.bcrypt-strength:10}") int strength) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), loginExecutor, registry);
+    }
+
+    // Proveedor de autenticacion del login: carga los usuarios con JpaUserDetailsService y los guarda
+    // en la cache, asi un login repetido no vuelve a consultar la base de datos
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    DaoAuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, UserCache userCache,
+            PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserCache(userCache);
+        return provider;
     }
 
     // Definimos la cadena de filtros de seguridad para manejar las peticiones HTTP
     @Bean
     SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        if (rateLimitEnabled) {
+            http
+                // Limite por IP del login, antes de verificar la password (el login no sigue la cadena)
+                .addFilterBefore(new RateLimitFilter(rateLimiter, antMatcher(HttpMethod.POST, "/login"), meterRegistry),
+                        UsernamePasswordAuthenticationFilter.class)
+                // Limite por usuario (o por IP si es anonima) para el resto, con el JWT ya validado
+                .addFilterAfter(new RateLimitFilter(rateLimiter, null, meterRegistry), BasicAuthenticationFilter.class);
+        }
         return http
                 // Configuramos qué rutas están permitidas sin autenticación
                 .authorizeHttpRequests((authz) -> authz
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Respuestas asincronas (Flux/Mono): la peticion original ya se autorizo
                     .requestMatchers(HttpMethod.GET, "/api/users").permitAll() // Permitir GET a /api/users sin autenticación
                     .requestMatchers(HttpMethod.POST, "/api/users/register").permitAll() // Permitir POST a /api/users/register
+                    .requestMatchers(HttpMethod.GET, "/actuator/health/**", "/actuator/prometheus").permitAll() // Prometheus y los chequeos de salud no envian JWT
                     .anyRequest().authenticated()) // Todas las demás rutas requieren autenticación
                 // Añadimos el filtro personalizado para autenticación con JWT
-                .addFilter(new JwtAuthenticationFilter(authenticationManager()))
+                .addFilter(new JwtAuthenticationFilter(authenticationManager(), meterRegistry))
                 // Añadimos el filtro personalizado para validar tokens JWT en cada petición
-                .addFilter(new JwtValidationFilter(authenticationManager()))
+                .addFilter(new JwtValidationFilter(authenticationManager(), verifiedTokenCache, acceptLegacyAuthorities,
+                        meterRegistry))
                 // Desactivamos CSRF porque estamos trabajando con API REST (sin formularios)
                 .csrf(config -> config.disable())
                 // Habilitamos CORS y definimos la configuración desde un método
@@ -74,7 +147,9 @@ public class SpringSecurityConfig {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowedOriginPatterns(Arrays.asList("*")); // Permitir solicitudes de cualquier origen
         config.setAllowedMethods(Arrays.asList("GET", "POST", "DELETE", "PUT")); // Métodos permitidos
-        config.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type")); // Cabeceras permitidas
+        config.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "If-Match", "If-None-Match",
+                "Prefer")); // Cabeceras permitidas (If-Match/If-None-Match para el bloqueo optimista y las caches)
+        config.setExposedHeaders(Arrays.asList("ETag")); // El navegador solo deja leer el ETag si se expone
         config.setAllowCredentials(true); // Permitir el uso de credenciales (cookies, tokens, etc.)
 
         // Registramos esta configuración para todas las rutas
@@ -4,7 +4,14 @@ package com.andres.curso.springboot.app.springbootcrud.security;
 // Importa la clase SecretKey, utilizada para firmar y validar tokens JWT.
 import javax.crypto.SecretKey;
 
-// Importa la clase Jwts del paquete de JWT (io.jsonwebtoken) para construir el secreto.
+// Importa la clase SimpleGrantedAuthority para registrar su mixin de Jackson.
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+// Importa el ObjectMapper de Jackson que comparten los filtros de seguridad.
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Importa las clases del paquete de JWT (io.jsonwebtoken) para construir el secreto y el parser.
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 
 // Clase de configuración para centralizar constantes relacionadas con JWT.
@@ -14,6 +21,18 @@ public class TokenJwtConfig {
     // Se genera dinámicamente al iniciar la aplicación (no es persistente).
     public static final SecretKey SECRET_KEY = Jwts.SIG.HS256.key().build();
 
+    // Parser de tokens ya configurado con la clave; es inmutable y seguro entre hilos, por eso se
+    // construye una sola vez en lugar de hacerlo en cada peticion.
+    public static final JwtParser JWT_PARSER = Jwts.parser().verifyWith(SECRET_KEY).build();
+
+    // ObjectMapper compartido por los filtros (tambien es seguro entre hilos una vez configurado).
+    // El mixin permite leer el formato antiguo del claim de roles: [{"authority":"ROLE_USER"}].
+    public static final ObjectMapper JSON_MAPPER = new ObjectMapper()
+            .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class);
+
+    // Nombre del claim donde viajan los roles como arreglo nativo: ["ROLE_USER", "ROLE_ADMIN"].
+    public static final String AUTHORITIES_CLAIM = "authorities";
+
     // Prefijo que se utiliza en el encabezado Authorization para indicar que se está usando un token Bearer.
     public static final String PREFIX_TOKEN = "Bearer ";
 
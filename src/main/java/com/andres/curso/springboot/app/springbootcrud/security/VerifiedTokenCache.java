@@ -0,0 +1,83 @@
+package com.andres.curso.springboot.app.springbootcrud.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Cache de tokens JWT ya verificados. La llave es el SHA-256 del token (no se guarda el token en
+// memoria) y el valor es la Authentication ya construida, asi una peticion repetida con el mismo
+// token no vuelve a calcular la firma ni a leer los claims. Cada entrada vence como maximo en la
+// fecha de expiracion (exp) del propio token.
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<ByteBuffer, Entry> cache;
+
+    private record Entry(Authentication authentication, long expiresAtMillis) {
+    }
+
+    public VerifiedTokenCache(MeterRegistry registry,
+            @Value("${security.jwt.verified-cache.max-size:50000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, Entry>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, Entry entry, long currentTime) {
+                        long ttl = entry.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, Entry entry, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, Entry entry, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "verifiedTokens");
+    }
+
+    // Devuelve la Authentication guardada o null si el token no se ha verificado (o ya expiro)
+    public Authentication get(String token) {
+        Entry entry = cache.getIfPresent(digest(token));
+        if (entry == null || entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.authentication();
+    }
+
+    public void put(String token, Authentication authentication, Date expiration) {
+        if (expiration != null) {
+            cache.put(digest(token), new Entry(authentication, expiration.getTime()));
+        }
+    }
+
+    private ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
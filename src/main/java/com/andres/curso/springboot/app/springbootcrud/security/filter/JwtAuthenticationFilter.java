@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,12 +17,14 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import com.andres.curso.springboot.app.springbootcrud.entities.User;
+import com.andres.curso.springboot.app.springbootcrud.security.LoginRejectedException;
 import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.databind.DatabindException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -32,11 +35,26 @@ import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtCo
 // Filtro que intercepta las peticiones de autenticación y genera un JWT si la autenticación es exitosa
 public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
+    // Latencia del login (verificacion de credenciales) por resultado: success, failure o rejected
+    public static final String LOGIN_TIMER = "security.login";
+
     private AuthenticationManager authenticationManager;
 
+    private final MeterRegistry registry;
+
+    private final Timer loginSuccess;
+
+    private final Timer loginFailure;
+
+    private final Timer loginRejected;
+
     // Constructor que recibe el AuthenticationManager para validar usuarios
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager) {
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, MeterRegistry registry) {
         this.authenticationManager = authenticationManager;
+        this.registry = registry;
+        this.loginSuccess = registry.timer(LOGIN_TIMER, "outcome", "success");
+        this.loginFailure = registry.timer(LOGIN_TIMER, "outcome", "failure");
+        this.loginRejected = registry.timer(LOGIN_TIMER, "outcome", "rejected");
     }
 
     // Método que intenta autenticar al usuario con los datos del request
@@ -50,7 +68,7 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
 
         try {
             // Se obtiene el usuario desde el cuerpo del request (JSON -> Objeto Java)
-            user = new ObjectMapper().readValue(request.getInputStream(), User.class);
+            user = JSON_MAPPER.readValue(request.getInputStream(), User.class);
             username = user.getUsername();
             password = user.getPassword();
         } catch (StreamReadException e) {
@@ -64,8 +82,31 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         // Se crea el token con el username y password para autenticación
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username, password);
 
-        // Se autentica al usuario
-        return authenticationManager.authenticate(authenticationToken);
+        // Se autentica al usuario; si el pool de login esta saturado se responde 503 de inmediato
+        // y se devuelve null para que el filtro no continue
+        Timer.Sample sample = Timer.start(registry);
+        Timer outcome = loginFailure;
+        try {
+            Authentication authentication = authenticationManager.authenticate(authenticationToken);
+            outcome = loginSuccess;
+            return authentication;
+        } catch (LoginRejectedException e) {
+            outcome = loginRejected;
+            Map<String, String> body = new HashMap<>();
+            body.put("message", "El servicio de login esta saturado, intente de nuevo en unos segundos");
+            body.put("error", e.getMessage());
+            try {
+                response.setStatus(503); // Service Unavailable
+                response.setHeader("Retry-After", "1");
+                response.setContentType(CONTENT_TYPE);
+                response.getWriter().write(JSON_MAPPER.writeValueAsString(body));
+            } catch (IOException ioException) {
+                ioException.printStackTrace();
+            }
+            return null;
+        } finally {
+            sample.stop(outcome);
+        }
     }
 
     // Método que se ejecuta si la autenticación fue exitosa
@@ -78,9 +119,12 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         String username = user.getUsername();
         Collection<? extends GrantedAuthority> roles = authResult.getAuthorities();
 
+        // Los roles viajan como un arreglo nativo de Strings dentro del claim
+        List<String> authorities = roles.stream().map(GrantedAuthority::getAuthority).toList();
+
         // Se construyen los claims (datos adicionales en el JWT)
         Claims claims = Jwts.claims()
-                .add("authorities", new ObjectMapper().writeValueAsString(roles)) // Se agregan roles como String
+                .add(AUTHORITIES_CLAIM, authorities) // Se agregan roles como arreglo
                 .add("username", username)
                 .build();
 
@@ -103,7 +147,7 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         body.put("message", String.format("Hola %s has iniciado sesion con exito!", username));
 
         // Se escribe el cuerpo como respuesta al cliente
-        response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+        response.getWriter().write(JSON_MAPPER.writeValueAsString(body));
         response.setContentType(CONTENT_TYPE);
         response.setStatus(200);
     }
@@ -116,7 +160,7 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         body.put("message", "Error en la autenticacion username o password incorrectos!");
         body.put("error", failed.getMessage());
 
-        response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+        response.getWriter().write(JSON_MAPPER.writeValueAsString(body));
         response.setStatus(401); // Unauthorized
         response.setContentType(CONTENT_TYPE);
     }
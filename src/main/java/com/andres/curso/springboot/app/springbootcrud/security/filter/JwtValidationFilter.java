@@ -2,31 +2,38 @@
 package com.andres.curso.springboot.app.springbootcrud.security.filter;
 
 // Importación de constantes usadas para configuración del token JWT
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.AUTHORITIES_CLAIM;
 import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.CONTENT_TYPE;
 import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.HEADER_AUTHORIZATION;
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.JSON_MAPPER;
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.JWT_PARSER;
 import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.PREFIX_TOKEN;
-import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.SECRET_KEY;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
-import com.andres.curso.springboot.app.springbootcrud.security.SimpleGrantedAuthorityJsonCreator;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.andres.curso.springboot.app.springbootcrud.security.VerifiedTokenCache;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -37,9 +44,35 @@ import jakarta.servlet.http.HttpServletResponse;
  */
 public class JwtValidationFilter extends BasicAuthenticationFilter {
 
+    // Cache de tokens ya verificados (evita recalcular la firma en cada peticion)
+    private final VerifiedTokenCache tokenCache;
+
+    // Modo de migracion: acepta tambien tokens emitidos con el formato antiguo, donde los roles
+    // venian como un String JSON dentro del claim "authorities"
+    private final boolean acceptLegacyAuthorities;
+
+    // Tiempo de validacion del token por resultado (cached, verified, invalid) y tokens rechazados por motivo
+    public static final String VALIDATION_TIMER = "security.jwt.validation";
+    public static final String INVALID_COUNTER = "security.jwt.invalid";
+
+    private final MeterRegistry registry;
+
+    private final Timer validationCached;
+
+    private final Timer validationVerified;
+
+    private final Timer validationInvalid;
+
     // Constructor que recibe el AuthenticationManager y lo pasa al padre
-    public JwtValidationFilter(AuthenticationManager authenticationManager) {
+    public JwtValidationFilter(AuthenticationManager authenticationManager, VerifiedTokenCache tokenCache,
+            boolean acceptLegacyAuthorities, MeterRegistry registry) {
         super(authenticationManager);
+        this.tokenCache = tokenCache;
+        this.acceptLegacyAuthorities = acceptLegacyAuthorities;
+        this.registry = registry;
+        this.validationCached = registry.timer(VALIDATION_TIMER, "result", "cached");
+        this.validationVerified = registry.timer(VALIDATION_TIMER, "result", "verified");
+        this.validationInvalid = registry.timer(VALIDATION_TIMER, "result", "invalid");
     }
 
     /**
@@ -59,33 +92,37 @@ public class JwtValidationFilter extends BasicAuthenticationFilter {
         }
 
         // Se remueve el prefijo para obtener solo el token
-        String token = header.replace(PREFIX_TOKEN, "");
+        String token = header.substring(PREFIX_TOKEN.length());
+
+        // Si el token ya fue verificado antes, se reutiliza la autenticacion guardada
+        long start = System.nanoTime();
+        Authentication cached = tokenCache.get(token);
+        if (cached != null) {
+            validationCached.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            SecurityContextHolder.getContext().setAuthentication(cached);
+            chain.doFilter(request, response);
+            return;
+        }
 
         try {
             // Se parsea el token y se obtienen los claims (información contenida en el JWT)
-            Claims claims = Jwts.parser()
-                .verifyWith(SECRET_KEY) // Verifica el token con la clave secreta
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+            // (el parser compartido ya tiene la clave secreta para verificar la firma)
+            Claims claims = JWT_PARSER.parseSignedClaims(token).getPayload();
 
             // Se obtiene el nombre de usuario (subject del token)
             String usename = claims.getSubject();
 
-            // Se obtiene la lista de roles/autorizaciones desde el claim "authorities"
-            Object authoritiesClaims = claims.get("authorities");
-
-            // Se convierte el claim de autoridades a una colección de objetos GrantedAuthority
-            Collection<? extends GrantedAuthority> authorities = Arrays.asList(
-                new ObjectMapper()
-                    .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class)
-                    .readValue(authoritiesClaims.toString().getBytes(), SimpleGrantedAuthority[].class)
-            );
+            // Se convierte el claim "authorities" a una colección de objetos GrantedAuthority
+            Collection<? extends GrantedAuthority> authorities = readAuthorities(claims.get(AUTHORITIES_CLAIM));
 
             // Se crea un token de autenticación con el usuario y las autoridades
             UsernamePasswordAuthenticationToken authenticationToken =
                 new UsernamePasswordAuthenticationToken(usename, null, authorities);
 
+            // Se guarda en la cache hasta la expiracion del token
+            tokenCache.put(token, authenticationToken, claims.getExpiration());
+            validationVerified.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
             // Se establece el token en el contexto de seguridad de Spring
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
 
@@ -93,15 +130,40 @@ public class JwtValidationFilter extends BasicAuthenticationFilter {
             chain.doFilter(request, response);
 
         } catch (JwtException e) {
+            validationInvalid.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            registry.counter(INVALID_COUNTER, "reason", e.getClass().getSimpleName()).increment();
+
             // En caso de token inválido, se genera una respuesta de error
             Map<String, String> body = new HashMap<>();
             body.put("error", e.getMessage());
             body.put("message", "El token JWT es invalido!");
 
             // Se escribe la respuesta con el mensaje de error
-            response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+            response.getWriter().write(JSON_MAPPER.writeValueAsString(body));
             response.setStatus(HttpStatus.UNAUTHORIZED.value()); // Código 401
             response.setContentType(CONTENT_TYPE);
         }
     }
+
+    /**
+     * Lee los roles del claim: arreglo nativo de Strings o, en modo de migracion, el String JSON antiguo.
+     */
+    private Collection<? extends GrantedAuthority> readAuthorities(Object authoritiesClaim) {
+        if (authoritiesClaim instanceof Collection<?> values) {
+            List<GrantedAuthority> authorities = new ArrayList<>(values.size());
+            for (Object value : values) {
+                authorities.add(new SimpleGrantedAuthority(value.toString()));
+            }
+            return authorities;
+        }
+        if (authoritiesClaim instanceof String legacy && acceptLegacyAuthorities) {
+            try {
+                return Arrays.asList(JSON_MAPPER.readValue(legacy, SimpleGrantedAuthority[].class));
+            } catch (IOException e) {
+                // Un String que no es el JSON esperado es un token mal formado (401), no un error del servidor
+                throw new MalformedJwtException("El claim authorities no tiene un formato valido", e);
+            }
+        }
+        throw new MalformedJwtException("El claim authorities no tiene un formato valido");
+    }
 }
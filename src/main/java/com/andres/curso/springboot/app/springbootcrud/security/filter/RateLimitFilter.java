@@ -0,0 +1,91 @@
+package com.andres.curso.springboot.app.springbootcrud.security.filter;
+
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.CONTENT_TYPE;
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.JSON_MAPPER;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.andres.curso.springboot.app.springbootcrud.security.RequestRateLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Filtro que limita la cantidad de peticiones: por usuario si la peticion ya viene autenticada
+// (va despues de JwtValidationFilter) y por IP si es anonima. Al superar el limite responde 429
+// con Retry-After (segundos) sin seguir con la cadena.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Peticiones rechazadas por tipo de llave (user o ip)
+    public static final String REJECTED_COUNTER = "security.ratelimit.rejected";
+
+    private final RequestRateLimiter limiter;
+
+    // Peticiones que revisa esta instancia (null = todas). El login termina en JwtAuthenticationFilter
+    // y no llega al final de la cadena, por eso tiene su propia instancia antes de ese filtro
+    private final RequestMatcher scope;
+
+    private final Counter rejectedUser;
+
+    private final Counter rejectedIp;
+
+    public RateLimitFilter(RequestRateLimiter limiter, RequestMatcher scope, MeterRegistry registry) {
+        this.limiter = limiter;
+        this.scope = scope;
+        this.rejectedUser = registry.counter(REJECTED_COUNTER, "key", "user");
+        this.rejectedIp = registry.counter(REJECTED_COUNTER, "key", "ip");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return scope != null && !scope.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+
+        long waitNanos = authenticated
+                ? limiter.acquireForUser(authentication.getName())
+                : limiter.acquireForIp(request.getRemoteAddr());
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        (authenticated ? rejectedUser : rejectedIp).increment();
+        long retryAfter = retryAfterSeconds(waitNanos);
+
+        Map<String, String> body = new HashMap<>();
+        body.put("message", "Demasiadas peticiones, intente nuevamente en " + retryAfter + " segundos");
+        body.put("error", authenticated ? "limite por usuario superado" : "limite por IP superado");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value()); // Código 429
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(CONTENT_TYPE);
+        response.getWriter().write(JSON_MAPPER.writeValueAsString(body));
+    }
+
+    // Retry-After en segundos enteros, redondeado hacia arriba y como minimo 1: con menos el cliente
+    // volveria antes de que haya un token disponible
+    static long retryAfterSeconds(long waitNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (waitNanos + second - 1) / second);
+    }
+}
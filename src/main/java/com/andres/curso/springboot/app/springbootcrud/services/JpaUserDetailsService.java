@@ -31,8 +31,8 @@ public class JpaUserDetailsService implements UserDetailsService {
     ///Se ejecuta en el login valida las credenciales
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        // Busca un usuario en la base de datos por su nombre de usuario
-        Optional<User> userOptional = repository.findByUsername(username);
+        // Busca un usuario en la base de datos por su nombre de usuario (junto con sus roles)
+        Optional<User> userOptional = repository.findByUsernameWithRoles(username);
 
         // Si no se encuentra el usuario, lanza una excepción
         if (userOptional.isEmpty()) {
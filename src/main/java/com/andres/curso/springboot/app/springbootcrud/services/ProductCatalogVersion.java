@@ -0,0 +1,111 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.andres.curso.springboot.app.springbootcrud.dto.CatalogVersion;
+import com.andres.curso.springboot.app.springbootcrud.entities.ProductCatalog;
+import com.andres.curso.springboot.app.springbootcrud.repositories.ProductCatalogRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// Version del catalogo de productos guardada en la fila unica de product_catalog, compartida por
+// todas las instancias de la aplicacion. Se incrementa despues del commit de cada escritura de
+// productos, en una transaccion propia de una sola sentencia: la fila no queda bloqueada durante la
+// transaccion de escritura, asi las escrituras de productos (y los bloques de la importacion) no se
+// ejecutan de a una. Los incrementos que llegan mientras otro esta en curso en esta instancia se
+// juntan en uno solo.
+@Component
+public class ProductCatalogVersion {
+
+    @Autowired
+    private ProductCatalogRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Transaccion nueva: dentro de afterCommit la transaccion de la escritura ya termino
+    private TransactionTemplate incrementTransaction;
+
+    // Incrementos pedidos y todavia no aplicados en esta instancia
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // Incrementos que fallaron (el ETag del listado queda viejo hasta la siguiente escritura)
+    private final Counter failures;
+
+    public ProductCatalogVersion(MeterRegistry registry) {
+        this.failures = registry.counter("products.catalog.version.failures");
+    }
+
+    // La fila se crea al arrancar si no existe. Empieza en la hora actual (ms) y no en 0, asi una
+    // base recreada no repite versiones que los clientes pueden tener guardadas en un ETag
+    @PostConstruct
+    public void init() {
+        incrementTransaction = new TransactionTemplate(transactionManager);
+        incrementTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (!repository.existsById(ProductCatalog.SINGLETON_ID)) {
+                    repository.save(new ProductCatalog(ProductCatalog.SINGLETON_ID, System.currentTimeMillis()));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia la creo al mismo tiempo
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CatalogVersion current() {
+        return new CatalogVersion(repository.findVersionById(ProductCatalog.SINGLETON_ID).orElse(0L));
+    }
+
+    // Se llama dentro de la transaccion que modifica los productos; si se revierte no hay incremento
+    public void incrementAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    // Si ya hay un incremento en curso en esta instancia, ese hilo hace una vuelta mas por los que
+    // llegaron mientras tanto: sus commits ya terminaron, un solo UPDATE posterior los cubre a todos
+    private void increment() {
+        if (pending.getAndIncrement() > 0) {
+            return;
+        }
+        int applied;
+        do {
+            applied = pending.get();
+            try {
+                incrementTransaction.executeWithoutResult(status -> {
+                    if (repository.incrementVersion(ProductCatalog.SINGLETON_ID) == 0) {
+                        repository.save(new ProductCatalog(ProductCatalog.SINGLETON_ID, System.currentTimeMillis()));
+                    }
+                });
+            } catch (RuntimeException e) {
+                // La escritura de productos ya se confirmo: no se le devuelve el error (seria un 500 para
+                // un cambio guardado). Se cuenta el fallo y la version avanza con el proximo incremento
+                failures.increment();
+                pending.set(0);
+                return;
+            }
+        } while (pending.addAndGet(-applied) > 0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import static com.andres.curso.springboot.app.springbootcrud.entities.Product.ID_GENERATOR_SEGMENT;
+import static com.andres.curso.springboot.app.springbootcrud.entities.Product.ID_GENERATOR_TABLE;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+// Las bases que ya tenian productos creados con IDENTITY traen ids que el generador de tabla
+// no conoce. Al arrancar se adelanta el contador de id_generators por encima del id maximo
+// para que los nuevos ids nunca choquen con los existentes.
+@Component
+public class ProductIdGeneratorInitializer {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Se inyecta para asegurar que Hibernate ya creo/actualizo las tablas antes de ejecutar el ajuste
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void alignWithExistingIds() {
+        long nextId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from products", Long.class);
+
+        List<Long> current = jdbcTemplate.queryForList(
+                "select next_val from " + ID_GENERATOR_TABLE + " where sequence_name = ?", Long.class,
+                ID_GENERATOR_SEGMENT);
+
+        if (current.isEmpty()) {
+            jdbcTemplate.update("insert into " + ID_GENERATOR_TABLE + " (sequence_name, next_val) values (?, ?)",
+                    ID_GENERATOR_SEGMENT, nextId);
+        } else if (current.get(0) < nextId) {
+            jdbcTemplate.update("update " + ID_GENERATOR_TABLE + " set next_val = ? where sequence_name = ?",
+                    nextId, ID_GENERATOR_SEGMENT);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.andres.curso.springboot.app.springbootcrud.WebConfig;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPage;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Respuestas de GET /api/{id} y GET /api/lista ya serializadas, por formato (JSON, CBOR, Smile).
+// Un acierto se responde con los bytes guardados, sin cargar la entidad ni pasar por Jackson.
+//
+// Cada entrada guarda la version con la que se genero (version del producto o ETag del catalogo) y
+// solo se usa si coincide con la actual, asi nunca se entrega un contenido viejo. Ademas
+// ProductServiceImpl descarta las entradas afectadas despues de cada commit (save, update, delete).
+// El tamaño total en bytes esta acotado por products.response-cache.max-size.
+@Component
+public class ProductResponseCache {
+
+    private record Body(Object version, byte[] bytes) {
+    }
+
+    private record Format(MediaType mediaType, ObjectWriter writer, Cache<Long, Body> products,
+            Cache<String, Body> pages) {
+    }
+
+    private final List<Format> formats;
+
+    public ProductResponseCache(Jackson2ObjectMapperBuilder objectMapperBuilder, MeterRegistry registry,
+            @Value("${products.response-cache.max-size:32MB}") DataSize maxSize) {
+        long maxBytes = maxSize.toBytes();
+        // Mismos formatos y misma configuracion de Jackson que los convertidores de WebConfig
+        this.formats = List.of(
+                format(MediaType.APPLICATION_JSON, objectMapperBuilder, new JsonFactory(), maxBytes, registry),
+                format(MediaType.parseMediaType(WebConfig.APPLICATION_CBOR_VALUE), objectMapperBuilder,
+                        new CBORFactory(), maxBytes, registry),
+                format(MediaType.parseMediaType(WebConfig.APPLICATION_SMILE_VALUE), objectMapperBuilder,
+                        new SmileFactory(), maxBytes, registry));
+    }
+
+    // Formato de la respuesta segun el encabezado Accept (null si no se acepta ninguno; sin Accept, JSON)
+    public MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (Format format : formats) {
+                if (type.isCompatibleWith(format.mediaType())) {
+                    return format.mediaType();
+                }
+            }
+        }
+        return null;
+    }
+
+    // Bytes del producto en esa version, o null si no estan en la cache
+    public byte[] getProduct(MediaType mediaType, Long id, Long version) {
+        Body body = format(mediaType).products().getIfPresent(id);
+        return body != null && body.version().equals(version) ? body.bytes() : null;
+    }
+
+    // Serializa el producto y lo guarda con su propia version (la que va en el ETag)
+    public byte[] putProduct(MediaType mediaType, Product product) throws JsonProcessingException {
+        Format format = format(mediaType);
+        byte[] bytes = format.writer().writeValueAsBytes(product);
+        if (product.getVersion() != null) {
+            format.products().put(product.getId(), new Body(product.getVersion(), bytes));
+        }
+        return bytes;
+    }
+
+    // Pagina del listado para esos parametros (query string) y ese ETag del catalogo
+    public byte[] getPage(MediaType mediaType, String query, String catalogEtag) {
+        Body body = format(mediaType).pages().getIfPresent(query);
+        return body != null && body.version().equals(catalogEtag) ? body.bytes() : null;
+    }
+
+    public byte[] putPage(MediaType mediaType, String query, String catalogEtag, ProductPage page)
+            throws JsonProcessingException {
+        Format format = format(mediaType);
+        byte[] bytes = format.writer().writeValueAsBytes(page);
+        format.pages().put(query, new Body(catalogEtag, bytes));
+        return bytes;
+    }
+
+    // Descarta el producto y todas las paginas; se aplica despues del commit si hay una transaccion
+    public void evict(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id);
+                }
+            });
+        } else {
+            evictNow(id);
+        }
+    }
+
+    private void evictNow(Long id) {
+        for (Format format : formats) {
+            if (id != null) {
+                format.products().invalidate(id);
+            }
+            format.pages().invalidateAll();
+        }
+    }
+
+    private Format format(MediaType mediaType) {
+        for (Format format : formats) {
+            if (format.mediaType().equals(mediaType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato no soportado: " + mediaType);
+    }
+
+    // El limite se reparte entre los tres formatos y, en cada uno, entre productos y paginas
+    private static Format format(MediaType mediaType, Jackson2ObjectMapperBuilder builder, JsonFactory factory,
+            long maxBytes, MeterRegistry registry) {
+        long maxWeight = maxBytes / 6;
+        String name = "productResponses." + mediaType.getSubtype();
+        Cache<Long, Body> products = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long id, Body body) -> body.bytes().length)
+                .recordStats()
+                .build();
+        Cache<String, Body> pages = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String query, Body body) -> query.length() + body.bytes().length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, products, name + ".products");
+        CaffeineCacheMetrics.monitor(registry, pages, name + ".pages");
+        return new Format(mediaType, builder.factory(factory).build().writer(), products, pages);
+    }
+}
@@ -0,0 +1,276 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductSearchPage;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+import com.andres.curso.springboot.app.springbootcrud.repositories.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// Indice invertido en memoria para la busqueda de productos por sku, name y description.
+// Se construye al arrancar y ProductServiceImpl lo actualiza despues de cada commit
+// (save, update, delete e importacion). Las busquedas no consultan la base de datos: los
+// resultados salen de la copia de cada producto que guarda el indice.
+// Las escrituras pasan por un unico escritor (writeLock) y las busquedas no se bloquean. Los
+// callbacks de commit pueden llegar desordenados: se descarta una copia con version menor a la
+// indexada y un id borrado no vuelve a indexarse (los ids no se reutilizan).
+@Component
+public class ProductSearchIndex {
+
+    // Peso de cada campo en el ranking: coincidir en el SKU vale mas que en el nombre o la descripcion
+    private static final float SKU_WEIGHT = 4f;
+    private static final float NAME_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    // Un termino que solo empieza con la palabra buscada puntua la mitad que uno exacto
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    // Las palabras mas cortas solo se buscan como termino exacto (un prefijo de 1 letra traeria todo)
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    // Tiempo que se recuerda un id borrado; basta con que supere la demora de cualquier callback de commit
+    private static final Duration REMOVED_ID_RETENTION = Duration.ofMinutes(10);
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+", Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    // termino -> (id del producto -> peso del termino en ese producto), ordenado para buscar por prefijo
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> terms = new ConcurrentSkipListMap<>();
+
+    // id -> producto indexado (copia) con sus terminos, para poder quitarlo o reemplazarlo
+    private final Map<Long, IndexedProduct> products = new ConcurrentHashMap<>();
+
+    // Ids borrados recientemente: un callback atrasado de un UPDATE anterior al DELETE no lo revive
+    private final Cache<Long, Boolean> removedIds = Caffeine.newBuilder()
+            .expireAfterWrite(REMOVED_ID_RETENTION)
+            .build();
+
+    // ReentrantLock y no synchronized: con hilos virtuales el hilo que espera libera su hilo portador
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private record IndexedProduct(Product product, Map<String, Float> terms) {
+    }
+
+    private record Scored(Product product, float score) {
+    }
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PostConstruct
+    public void load() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            writeLock.lock();
+            try (Stream<Product> all = repository.streamAll()) {
+                all.forEach(product -> {
+                    put(copy(product, product.getVersion()));
+                    entityManager.detach(product);
+                });
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    // Agrega o reemplaza un producto; se aplica despues del commit si hay una transaccion activa
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        // Se copia ahora: la entidad puede cambiar o quedar desconectada antes del commit
+        Product snapshot = copy(product, product.getVersion());
+        afterCommit(() -> {
+            writeLock.lock();
+            try {
+                put(snapshot);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    public void remove(Long id) {
+        if (id != null) {
+            afterCommit(() -> {
+                writeLock.lock();
+                try {
+                    removedIds.put(id, Boolean.TRUE);
+                    removeNow(id);
+                } finally {
+                    writeLock.unlock();
+                }
+            });
+        }
+    }
+
+    // Busqueda con ranking: cada palabra de la consulta debe coincidir (como termino exacto o como
+    // prefijo de un termino) en algun campo. Se ordena por puntaje y luego por id.
+    public ProductSearchPage search(String query, int page, int size) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty()) {
+            return new ProductSearchPage(List.of(), page, size, 0);
+        }
+
+        Map<Long, Float> scores = null;
+        for (String word : words) {
+            Map<Long, Float> wordScores = scoreWord(word);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                // Solo siguen los productos que tambien coinciden con esta palabra
+                Map<Long, Float> current = wordScores;
+                scores.keySet().retainAll(current.keySet());
+                scores.replaceAll((id, score) -> score + current.get(id));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            IndexedProduct indexed = products.get(id);
+            if (indexed != null) {
+                ranked.add(new Scored(indexed.product(), score));
+            }
+        });
+        ranked.sort(Comparator.comparingDouble(Scored::score).reversed()
+                .thenComparing(scored -> scored.product().getId()));
+
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        List<Product> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(copy(ranked.get(i).product(), ranked.get(i).product().getVersion()));
+        }
+        return new ProductSearchPage(content, page, size, ranked.size());
+    }
+
+    // Mejor puntaje de una palabra en cada producto: termino exacto o, si no, el mejor prefijo
+    private Map<Long, Float> scoreWord(String word) {
+        Map<Long, Float> scores = new HashMap<>();
+        NavigableMap<String, Map<Long, Float>> matches = word.length() < MIN_PREFIX_LENGTH
+                ? terms.subMap(word, true, word, true)
+                : terms.subMap(word, true, word + Character.MAX_VALUE, false);
+        matches.forEach((term, postings) -> {
+            float factor = term.equals(word) ? 1f : PREFIX_FACTOR;
+            postings.forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+        });
+        return scores;
+    }
+
+    // Solo con writeLock tomado
+    private void put(Product product) {
+        if (removedIds.getIfPresent(product.getId()) != null) {
+            return;
+        }
+        IndexedProduct current = products.get(product.getId());
+        if (current != null && current.product().getVersion() != null && product.getVersion() != null
+                && product.getVersion() < current.product().getVersion()) {
+            return;
+        }
+        removeNow(product.getId());
+        Map<String, Float> weights = new HashMap<>();
+        addTerms(weights, product.getSku(), SKU_WEIGHT);
+        addTerms(weights, product.getName(), NAME_WEIGHT);
+        addTerms(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        products.put(product.getId(), new IndexedProduct(product, weights));
+        weights.forEach((term, weight) -> terms
+                .computeIfAbsent(term, t -> new ConcurrentHashMap<>())
+                .put(product.getId(), weight));
+    }
+
+    // Solo con writeLock tomado
+    private void removeNow(Long id) {
+        IndexedProduct previous = products.remove(id);
+        if (previous == null) {
+            return;
+        }
+        previous.terms().keySet().forEach(term -> terms.computeIfPresent(term, (t, postings) -> {
+            postings.remove(id);
+            return postings.isEmpty() ? null : postings;
+        }));
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    // Minusculas, sin acentos y separado en palabras alfanumericas ("Café-Ñandú 2" -> cafe, nandu, 2)
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Product copy(Product product, Long version) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setSku(product.getSku());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setVersion(version);
+        return copy;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -2,20 +2,44 @@ package com.andres.curso.springboot.app.springbootcrud.services;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.andres.curso.springboot.app.springbootcrud.dto.CatalogVersion;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductDeleteReport;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductFilter;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductImportReport;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPage;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPageQuery;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductSearchPage;
 import com.andres.curso.springboot.app.springbootcrud.entities.Product;
 
 public interface ProductService {
     
-    List<Product> findAll();
+    ProductPageQuery pageQuery(ProductFilter filter, String cursor, int size, String orderBy, String sort);
+
+    ProductPage findPage(ProductPageQuery pageQuery);
+
+    void forEachProduct(Consumer<Product> consumer);
 
     Optional<Product> findById(Long id);
 
+    Optional<Long> findVersion(Long id);
+
+    CatalogVersion catalogVersion();
+
     Product save(Product product);
+
+    ProductImportReport importProducts(List<Product> products);
     
-    Optional<Product> update(Long id, Product product);
+    Optional<Product> update(Long id, Long expectedVersion, Product product);
 
     Optional<Product> delete(Long id);
 
+    boolean deleteById(Long id);
+
+    ProductDeleteReport deleteAll(List<Long> ids, boolean returnDeleted);
+
+    ProductSearchPage search(String query, int page, int size);
+
     boolean existsBySku(String sku);
 }
@@ -1,29 +1,189 @@
 // Paquete donde se encuentra la clase
 package com.andres.curso.springboot.app.springbootcrud.services;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.andres.curso.springboot.app.springbootcrud.dto.CatalogVersion;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductDeleteReport;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductFilter;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductImportReport;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductImportResult;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPage;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPageQuery;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductSearchPage;
 import com.andres.curso.springboot.app.springbootcrud.entities.Product;
 import com.andres.curso.springboot.app.springbootcrud.repositories.ProductRepository;
+import com.andres.curso.springboot.app.springbootcrud.repositories.ProductSpecifications;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+// Cada metodo publico se mide con el timer "service.products" (tags class, method y exception)
+@Timed("service.products")
 // Anotación que indica que esta clase es un componente de servicio de Spring
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    // Tamaño de pagina por defecto y maximo permitido para el listado
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Campos por los que se puede ordenar el listado (cada uno tiene su indice, ver Product)
+    public static final String SORT_BY_ID = "id";
+    public static final String SORT_BY_PRICE = "price";
+    public static final String SORT_BY_NAME = "name";
+    public static final List<String> SORT_FIELDS = List.of(SORT_BY_ID, SORT_BY_PRICE, SORT_BY_NAME);
+
+    // Filas que se validan e insertan juntas en cada transaccion de la importacion masiva
+    public static final int IMPORT_CHUNK_SIZE = 500;
+
+    // Ids que se envian en cada "delete ... where id in (...)" del borrado masivo
+    public static final int DELETE_CHUNK_SIZE = 500;
+
     // Inyección automática del repositorio de productos
     @Autowired
     private ProductRepository repository;
 
-    // Método para obtener todos los productos. Transacción solo de lectura.
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private SkuIndex skuIndex;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductResponseCache responseCache;
+
+    @Autowired
+    private ProductCatalogVersion catalogVersion;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Valida los parametros del listado y decodifica el cursor; lanza IllegalArgumentException si
+    // alguno no es valido. Si viene un cursor, la direccion, el campo de orden y la ultima fila se toman de el
+    @Override
+    public ProductPageQuery pageQuery(ProductFilter filter, String cursor, int size, String orderBy, String sort) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (filter.minPrice() != null && filter.maxPrice() != null && filter.minPrice() > filter.maxPrice()) {
+            throw new IllegalArgumentException("minPrice no puede ser mayor que maxPrice");
+        }
+        Sort.Direction direction = Sort.Direction.fromString(sort);
+        Long lastId = null;
+        String lastValue = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            direction = Sort.Direction.fromString(parts[0]);
+            lastId = Long.valueOf(parts[1]);
+            orderBy = parts.length > 2 ? parts[2] : SORT_BY_ID;
+            lastValue = parts.length > 2 ? parts[3] : null;
+        }
+        if (!SORT_FIELDS.contains(orderBy)) {
+            throw new IllegalArgumentException("orderBy debe ser uno de " + SORT_FIELDS);
+        }
+        // El precio del cursor se comprueba aqui (NumberFormatException) y no recien al armar la consulta
+        if (SORT_BY_PRICE.equals(orderBy) && lastValue != null) {
+            Integer.parseInt(lastValue);
+        }
+        return new ProductPageQuery(filter, orderBy, direction, lastId, lastValue, pageSize);
+    }
+
+    // Método para obtener una pagina de productos usando un cursor (keyset) sobre el campo de orden
+    // y el id. Nunca se carga la tabla completa: se leen como maximo size + 1 filas y los filtros y
+    // el orden los resuelve la base de datos con los indices de price y name.
     @Transactional(readOnly = true)
     @Override
-    public List<Product> findAll() {
-        return (List<Product>) repository.findAll();
+    public ProductPage findPage(ProductPageQuery pageQuery) {
+        ProductFilter filter = pageQuery.filter();
+        String orderBy = pageQuery.orderBy();
+        Sort.Direction direction = pageQuery.direction();
+        Long lastId = pageQuery.lastId();
+        int pageSize = pageQuery.pageSize();
+
+        // Se pide una fila extra para saber si existe una pagina siguiente
+        List<Product> products;
+        if (filter.isEmpty() && SORT_BY_ID.equals(orderBy)) {
+            PageRequest pageable = PageRequest.of(0, pageSize + 1, Sort.by(direction, SORT_BY_ID));
+            products = direction.isAscending()
+                    ? repository.findByIdGreaterThan(lastId == null ? 0L : lastId, pageable)
+                    : repository.findByIdLessThan(lastId == null ? Long.MAX_VALUE : lastId, pageable);
+        } else {
+            products = findFiltered(filter, orderBy, direction, pageQuery.lastValue(), lastId, pageSize + 1);
+        }
+
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            nextCursor = encodeCursor(direction, orderBy, products.get(pageSize - 1));
+        }
+        return new ProductPage(products, pageSize, nextCursor);
+    }
+
+    // where <filtros> [and <keyset>] order by <campo>, id limit <limit>
+    private List<Product> findFiltered(ProductFilter filter, String orderBy, Sort.Direction direction,
+            String lastValue, Long lastId, int limit) {
+        Specification<Product> spec = ProductSpecifications.matching(filter);
+        if (!SORT_BY_ID.equals(orderBy)) {
+            // Sin nulos en el campo de orden la condicion del keyset es una comparacion simple
+            spec = spec.and((root, query, cb) -> cb.isNotNull(root.get(orderBy)));
+        }
+        if (lastId != null) {
+            spec = spec.and(switch (orderBy) {
+                case SORT_BY_PRICE -> ProductSpecifications.after(SORT_BY_PRICE, direction, Integer.valueOf(lastValue), lastId);
+                case SORT_BY_NAME -> ProductSpecifications.after(SORT_BY_NAME, direction, lastValue, lastId);
+                default -> ProductSpecifications.idAfter(direction, lastId);
+            });
+        }
+        Sort sort = SORT_BY_ID.equals(orderBy)
+                ? Sort.by(direction, SORT_BY_ID)
+                : Sort.by(direction, orderBy, SORT_BY_ID);
+        return repository.findBy(spec, query -> query.sortBy(sort).limit(limit).all());
+    }
+
+    // Recorre todo el catalogo fila por fila. Cada producto se separa (detach) del contexto de
+    // persistencia despues de procesarlo, asi la memoria usada no crece con el tamaño de la tabla.
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachProduct(Consumer<Product> consumer) {
+        try (Stream<Product> products = repository.streamAll()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
     }
 
     // Método para obtener un producto por su ID. Transacción solo de lectura.
@@ -33,52 +193,257 @@ public class ProductServiceImpl implements ProductService {
         return repository.findById(id);
     }
 
+    // Version de un producto (para el ETag) sin cargar la entidad completa
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    // Version de todo el catalogo (para el ETag del listado): una lectura por clave primaria
+    @Override
+    public CatalogVersion catalogVersion() {
+        return catalogVersion.current();
+    }
+
     // Método para guardar un nuevo producto o actualizar uno existente. Transacción de escritura.
     @Override
     @Transactional
     public Product save(Product product) {
-        return repository.save(product);
+        // El flush ejecuta el INSERT aqui: un SKU repetido (restriccion unica) llega al controlador
+        // como DataIntegrityViolationException
+        Product saved = repository.saveAndFlush(product);
+        catalogVersion.incrementAfterCommit();
+        skuIndex.add(saved.getSku());
+        searchIndex.index(saved);
+        responseCache.evict(saved.getId());
+        return saved;
     }
 
-    // Método para actualizar un producto existente por su ID.
+    // Importacion masiva: los productos se procesan en bloques. Primero se valida todo el bloque
+    // (antes de insertar, para que las consultas de validacion no vacien el batch pendiente) y
+    // luego las filas validas se insertan en batch JDBC dentro de una transaccion por bloque.
+    @Override
+    public ProductImportReport importProducts(List<Product> products) {
+        ProductImportResult[] results = new ProductImportResult[products.size()];
+        Set<String> importedSkus = new HashSet<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int created = 0;
+
+        for (int start = 0; start < products.size(); start += IMPORT_CHUNK_SIZE) {
+            int end = Math.min(start + IMPORT_CHUNK_SIZE, products.size());
+            List<Product> valid = new ArrayList<>(end - start);
+            List<Integer> validIndexes = new ArrayList<>(end - start);
+
+            for (int i = start; i < end; i++) {
+                Product product = products.get(i);
+                Map<String, String> errors = validateForImport(product);
+                if (errors.isEmpty() && !importedSkus.add(product.getSku())) {
+                    errors.put("sku", "El campo sku esta repetido dentro de la importacion");
+                }
+                if (errors.isEmpty()) {
+                    product.setId(null);
+                    valid.add(product);
+                    validIndexes.add(i);
+                } else {
+                    results[i] = ProductImportResult.rejected(i + 1, product == null ? null : product.getSku(), errors);
+                }
+            }
+
+            try {
+                transaction.executeWithoutResult(status -> insertAll(valid));
+                for (int j = 0; j < valid.size(); j++) {
+                    int i = validIndexes.get(j);
+                    results[i] = ProductImportResult.created(i + 1, valid.get(j).getSku(), valid.get(j).getId());
+                }
+                created += valid.size();
+            } catch (DataAccessException | PersistenceException e) {
+                // El flush lanza excepciones de Hibernate sin traducir (PersistenceException). El bloque
+                // se revirtio completo: se reintenta fila por fila para rechazar solo las que fallan
+                for (int j = 0; j < valid.size(); j++) {
+                    int i = validIndexes.get(j);
+                    Product product = valid.get(j);
+                    product.setId(null);
+                    product.setVersion(null);
+                    try {
+                        transaction.executeWithoutResult(status -> insertAll(List.of(product)));
+                        results[i] = ProductImportResult.created(i + 1, product.getSku(), product.getId());
+                        created++;
+                    } catch (DataAccessException | PersistenceException rowError) {
+                        Map<String, String> errors = new HashMap<>();
+                        errors.put("error", NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                        results[i] = ProductImportResult.rejected(i + 1, product.getSku(), errors);
+                    }
+                }
+            }
+        }
+        return new ProductImportReport(results.length, created, results.length - created, Arrays.asList(results));
+    }
+
+    // Inserta las filas en batch dentro de la transaccion actual; los INSERT se ejecutan en el flush
+    private void insertAll(List<Product> products) {
+        repository.saveAll(products);
+        products.forEach(product -> {
+            skuIndex.add(product.getSku());
+            searchIndex.index(product);
+            responseCache.evict(product.getId());
+        });
+        catalogVersion.incrementAfterCommit();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Aplica las mismas validaciones que el endpoint de creacion y devuelve los errores por campo
+    private Map<String, String> validateForImport(Product product) {
+        Map<String, String> errors = new HashMap<>();
+        if (product == null) {
+            errors.put("error", "La fila esta vacia");
+            return errors;
+        }
+        for (ConstraintViolation<Product> violation : validator.validate(product)) {
+            String field = violation.getPropertyPath().toString();
+            errors.put(field, "El campo " + field + " " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    // Método para actualizar un producto existente por su ID a traves de la entidad: con el perfil
+    // l2cache findById sale de la cache de segundo nivel y Hibernate solo invalida la entrada de este
+    // producto (un UPDATE JPQL invalidaria la region completa). El UPDATE lleva "and version = ?":
+    // si se indica expectedVersion y no coincide, o si otro cambio llego entre la lectura y el
+    // UPDATE, se lanza OptimisticLockingFailureException. Devuelve el producto con su nueva version,
+    // o vacio si no existe.
     @Override
     @Transactional
-    public Optional<Product> update(Long id, Product product) {
-        // Se busca el producto por ID
+    public Optional<Product> update(Long id, Long expectedVersion, Product product) {
         Optional<Product> productOptional = repository.findById(id);
-        if (productOptional.isPresent()) {
-            // Si se encuentra, se actualizan sus atributos con los nuevos datos
-            Product productDb = productOptional.orElseThrow();
+        if (productOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        Product productDb = productOptional.orElseThrow();
+        if (expectedVersion != null && !expectedVersion.equals(productDb.getVersion())) {
+            throw new OptimisticLockingFailureException(
+                    String.format("El producto %d fue modificado por otra peticion", id));
+        }
 
-            productDb.setSku(product.getSku());
-            productDb.setName(product.getName());
-            productDb.setDescription(product.getDescription());
-            productDb.setPrice(product.getPrice());
+        String previousSku = productDb.getSku();
+        productDb.setSku(product.getSku());
+        productDb.setName(product.getName());
+        productDb.setDescription(product.getDescription());
+        productDb.setPrice(product.getPrice());
+        // El flush ejecuta el UPDATE aqui para que un conflicto de version o de SKU llegue al
+        // controlador ya traducido (y no al confirmar la transaccion)
+        Product updated = repository.saveAndFlush(productDb);
 
-            // Se guarda y retorna el producto actualizado
-            return Optional.of(repository.save(productDb));
+        catalogVersion.incrementAfterCommit();
+        if (previousSku != null && !previousSku.equals(updated.getSku())) {
+            skuIndex.remove(previousSku);
         }
-        // Si no se encuentra el producto, se retorna el Optional vacío
-        return productOptional;
+        skuIndex.add(updated.getSku());
+        searchIndex.index(updated);
+        responseCache.evict(id);
+        return Optional.of(updated);
     }
 
-    // Método para eliminar un producto por ID
-    @Transactional
+    // Método para eliminar un producto por ID devolviendo la fila borrada (solo si el cliente la pide)
     @Override
+    @Transactional
     public Optional<Product> delete(Long id) {
         // Se busca el producto
         Optional<Product> productOptional = repository.findById(id);
-        // Si existe, se elimina
-        productOptional.ifPresent(productDb -> {
-            repository.delete(productDb);
-        });
+        productOptional.ifPresent(this::remove);
         return productOptional;
     }
 
+    // Método para eliminar un producto por ID. Se borra a traves de la entidad (con el perfil l2cache
+    // findById no consulta la base de datos) para que Hibernate solo quite este producto de la cache
+    // de segundo nivel; el DELETE JPQL queda para el borrado masivo.
+    @Override
+    @Transactional
+    public boolean deleteById(Long id) {
+        Optional<Product> productOptional = repository.findById(id);
+        productOptional.ifPresent(this::remove);
+        return productOptional.isPresent();
+    }
+
+    // Borra la entidad cargada; el DELETE lleva "and version = ?" y el flush inmediato hace que un
+    // cambio concurrente llegue como OptimisticLockingFailureException
+    private void remove(Product product) {
+        repository.delete(product);
+        repository.flush();
+        catalogVersion.incrementAfterCommit();
+        skuIndex.remove(product.getSku());
+        searchIndex.remove(product.getId());
+        responseCache.evict(product.getId());
+    }
+
+    // Borrado masivo: los ids (sin repetidos) se borran en bloques de DELETE_CHUNK_SIZE dentro de una
+    // sola transaccion. Las filas solo se leen antes de borrarlas si returnDeleted es true.
+    @Override
+    @Transactional
+    public ProductDeleteReport deleteAll(List<Long> ids, boolean returnDeleted) {
+        List<Long> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+        unique.removeIf(id -> id == null);
+        List<Product> deletedProducts = returnDeleted ? new ArrayList<>() : null;
+        int deleted = 0;
+
+        for (int from = 0; from < unique.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = unique.subList(from, Math.min(from + DELETE_CHUNK_SIZE, unique.size()));
+            if (returnDeleted) {
+                repository.findAllById(chunk).forEach(product -> {
+                    deletedProducts.add(product);
+                    skuIndex.remove(product.getSku());
+                });
+            }
+            deleted += repository.deleteRowsByIds(chunk);
+            chunk.forEach(searchIndex::remove);
+            chunk.forEach(responseCache::evict);
+        }
+        if (deleted > 0) {
+            catalogVersion.incrementAfterCommit();
+        }
+        return new ProductDeleteReport(unique.size(), deleted, deletedProducts);
+    }
+
+    // Busqueda por sku, name y description en el indice en memoria (sin consultar la base de datos)
+    @Override
+    public ProductSearchPage search(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("el parametro q es requerido");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("page debe ser mayor o igual que 0");
+        }
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        return searchIndex.search(query, page, pageSize);
+    }
+
     // Método para verificar si ya existe un producto con un SKU determinado
     @Override
     @Transactional(readOnly = true)
     public boolean existsBySku(String sku) {
         return repository.existsBySku(sku);
     }
+
+    // El cursor es opaco para el cliente: "direccion:ultimoId" (orden por id) o
+    // "direccion:ultimoId:campo:ultimoValor" codificado en Base64 URL. El valor va al final porque
+    // un nombre puede contener ':'
+    static String encodeCursor(Sort.Direction direction, String orderBy, Product last) {
+        String raw = direction.name() + ":" + last.getId();
+        if (SORT_BY_PRICE.equals(orderBy)) {
+            raw += ":" + SORT_BY_PRICE + ":" + last.getPrice();
+        } else if (SORT_BY_NAME.equals(orderBy)) {
+            raw += ":" + SORT_BY_NAME + ":" + last.getName();
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":", 4);
+        if (parts.length != 2 && parts.length != 4) {
+            throw new IllegalArgumentException("cursor invalido");
+        }
+        return parts;
+    }
 }
@@ -0,0 +1,14 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Consultas de solo lectura sin bloqueo (R2DBC). Las escrituras siguen en ProductService (JPA).
+public interface ReactiveProductService {
+
+    Flux<Product> findAll(Long afterId, Integer limit);
+
+    Mono<Product> findById(Long id);
+}
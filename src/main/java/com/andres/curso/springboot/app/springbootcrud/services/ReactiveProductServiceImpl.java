@@ -0,0 +1,81 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Lecturas de productos sobre R2DBC: ningun hilo queda bloqueado esperando a la base de datos y los
+// Flux respetan la contrapresion del cliente. El ConnectionFactory no se publica como bean porque
+// Spring Boot desactivaria el DataSource de JPA; por eso se crea y se cierra aqui.
+@Service
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    private static final String COLUMNS = "id, sku, name, price, description, version";
+
+    private final ConnectionFactory connectionFactory;
+
+    private final DatabaseClient client;
+
+    public ReactiveProductServiceImpl(@Value("${products.reactive.url}") String url,
+            @Value("${products.reactive.username:}") String username,
+            @Value("${products.reactive.password:}") String password) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.connectionFactory = ConnectionFactories.get(options.build());
+        this.client = DatabaseClient.create(connectionFactory);
+    }
+
+    // Productos ordenados por id a partir de afterId (keyset); sin limit se emiten todos a medida que
+    // el cliente los pide
+    @Override
+    public Flux<Product> findAll(Long afterId, Integer limit) {
+        String sql = "select " + COLUMNS + " from " + Product.TABLE_NAME + " where id > :afterId order by id"
+                + (limit != null ? " limit :limit" : "");
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql).bind("afterId", afterId == null ? 0L : afterId);
+        if (limit != null) {
+            spec = spec.bind("limit", limit);
+        }
+        return spec.map(this::toProduct).all();
+    }
+
+    @Override
+    public Mono<Product> findById(Long id) {
+        return client.sql("select " + COLUMNS + " from " + Product.TABLE_NAME + " where id = :id")
+                .bind("id", id)
+                .map(this::toProduct)
+                .one();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (connectionFactory instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    // Mismas columnas que el mapeo JPA de Product
+    private Product toProduct(Readable row) {
+        Product product = new Product();
+        product.setId(row.get("id", Long.class));
+        product.setSku(row.get("sku", String.class));
+        product.setName(row.get("name", String.class));
+        product.setPrice(row.get("price", Integer.class));
+        product.setDescription(row.get("description", String.class));
+        product.setVersion(row.get("version", Long.class));
+        return product;
+    }
+}
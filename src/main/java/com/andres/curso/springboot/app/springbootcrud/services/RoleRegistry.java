@@ -0,0 +1,67 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Role;
+import com.andres.curso.springboot.app.springbootcrud.repositories.RoleRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Registro en memoria de los roles (tabla casi estatica). Se carga al arrancar y se recarga
+// periodicamente para ver los cambios de la tabla roles. Pedir un rol que no conoce tambien lo
+// recarga, pero como mucho una vez cada roles.registry.miss-refresh-interval: un rol que no existe
+// no puede provocar una lectura completa de la tabla en cada peticion. Asignar roles a un usuario
+// ya no necesita consultas.
+@Component
+public class RoleRegistry {
+
+    @Autowired
+    private RoleRepository repository;
+
+    @Value("${roles.registry.miss-refresh-interval:PT30S}")
+    private Duration missRefreshInterval;
+
+    private volatile Map<String, Role> roles = Map.of();
+
+    // System.nanoTime() de la ultima recarga
+    private final AtomicLong lastRefresh = new AtomicLong();
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${roles.registry.refresh-interval:PT5M}",
+            initialDelayString = "${roles.registry.refresh-interval:PT5M}")
+    public void refresh() {
+        Map<String, Role> loaded = new HashMap<>();
+        repository.findAll().forEach(role -> loaded.put(role.getName(), role));
+        roles = Map.copyOf(loaded);
+        lastRefresh.set(System.nanoTime());
+    }
+
+    public Optional<Role> findByName(String name) {
+        Role role = roles.get(name);
+        if (role == null && refreshAfterMiss()) {
+            role = roles.get(name);
+        }
+        return Optional.ofNullable(role);
+    }
+
+    // Recarga solo si paso el intervalo desde la ultima; entre varios hilos con un fallo a la vez
+    // recarga solo el que gana el compareAndSet y el resto responde con los roles que ya hay
+    private boolean refreshAfterMiss() {
+        long last = lastRefresh.get();
+        long now = System.nanoTime();
+        if (now - last < missRefreshInterval.toNanos() || !lastRefresh.compareAndSet(last, now)) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.andres.curso.springboot.app.springbootcrud.repositories.ProductRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Indice en memoria con todos los SKU registrados. Se carga al arrancar y ProductServiceImpl lo
+// mantiene sincronizado. Si un SKU no esta en el indice la validacion lo da por libre sin consultar
+// la base de datos; si esta, se confirma contra la base de datos (puede ser una entrada vieja de una
+// transaccion que se revirtio). El indice es de esta instancia y no ve SKU creados por otras ni por
+// transacciones sin commit: la garantia de unicidad es la restriccion uk_products_sku (ver Product).
+@Component
+public class SkuIndex {
+
+    private final Set<String> skus = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PostConstruct
+    public void load() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try (Stream<String> all = repository.streamAllSkus()) {
+                all.forEach(skus::add);
+            }
+        });
+    }
+
+    public boolean mightContain(String sku) {
+        return sku != null && skus.contains(sku);
+    }
+
+    public int size() {
+        return skus.size();
+    }
+
+    // Se agrega de inmediato: si la transaccion se revierte solo queda un positivo que se confirma en BD
+    public void add(String sku) {
+        if (sku != null) {
+            skus.add(sku);
+        }
+    }
+
+    // Se quita despues del commit: quitarlo antes permitiria duplicar un SKU si la transaccion se revierte
+    public void remove(String sku) {
+        if (sku == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    skus.remove(sku);
+                }
+            });
+        } else {
+            skus.remove(sku);
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package com.andres.curso.springboot.app.springbootcrud.services;
 
-import java.util.List;
-
+import com.andres.curso.springboot.app.springbootcrud.dto.UserPage;
 import com.andres.curso.springboot.app.springbootcrud.entities.User;
 
 public interface UserService {
     
-    List<User> findAll();
+    UserPage findPage(int page, int size);
 
     User save(User user);
 
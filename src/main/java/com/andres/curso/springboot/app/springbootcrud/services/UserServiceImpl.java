@@ -1,35 +1,72 @@
 package com.andres.curso.springboot.app.springbootcrud.services;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.andres.curso.springboot.app.springbootcrud.dto.UserPage;
+import com.andres.curso.springboot.app.springbootcrud.dto.UserRoleName;
+import com.andres.curso.springboot.app.springbootcrud.dto.UserSummary;
 import com.andres.curso.springboot.app.springbootcrud.entities.Role;
 import com.andres.curso.springboot.app.springbootcrud.entities.User;
-import com.andres.curso.springboot.app.springbootcrud.repositories.RoleRepository;
 import com.andres.curso.springboot.app.springbootcrud.repositories.UserRepository;
 
+import io.micrometer.core.annotation.Timed;
+
+// Cada metodo publico se mide con el timer "service.users" (tags class, method y exception)
+@Timed("service.users")
 @Service
 public class UserServiceImpl implements UserService{
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private UserRepository repository;
 
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UsernameCache usernameCache;
+
+    @Autowired
+    private UserCache userCache;
+
+    ///Listado paginado: siempre 3 consultas (pagina, total y roles de la pagina) sin importar
+    ///cuantos usuarios tenga la pagina, y sin serializar entidades con colecciones lazy
     @Override
     @Transactional(readOnly = true)
-    public List<User> findAll() {
-        return (List<User>) repository.findAll();
+    public UserPage findPage(int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Page<User> users = repository.findAllBy(PageRequest.of(Math.max(page, 0), pageSize, Sort.by("id")));
+
+        Map<Long, List<String>> rolesByUser = new HashMap<>();
+        if (users.hasContent()) {
+            List<Long> ids = users.map(User::getId).getContent();
+            for (UserRoleName userRole : repository.findRoleNamesByUserIds(ids)) {
+                rolesByUser.computeIfAbsent(userRole.userId(), id -> new ArrayList<>()).add(userRole.roleName());
+            }
+        }
+
+        List<UserSummary> content = users.map(user -> new UserSummary(user.getId(), user.getUsername(),
+                user.isEnabled(), rolesByUser.getOrDefault(user.getId(), List.of()))).getContent();
+        return new UserPage(content, users.getNumber(), users.getSize(), users.getTotalElements(),
+                users.getTotalPages());
     }
 
     @Override
@@ -37,8 +74,8 @@ public class UserServiceImpl implements UserService{
     public User save(User user) {
 
 
-        ///Ve y busca en la DB los roles por nombre
-        Optional<Role> optionalRoleUser = roleRepository.findByName("ROLE_USER");
+        ///Busca los roles por nombre en el registro en memoria (sin ir a la DB)
+        Optional<Role> optionalRoleUser = roleRegistry.findByName("ROLE_USER");
         
         ///Crea la lista roles
         List<Role> roles = new ArrayList<>();
@@ -49,7 +86,7 @@ public class UserServiceImpl implements UserService{
         ///isAdmin es un boolean esa bandera viene en el JSON
         if (user.isAdmin()) {
             ///Buscas los roles por admin
-            Optional<Role> optionalRoleAdmin = roleRepository.findByName("ROLE_ADMIN");
+            Optional<Role> optionalRoleAdmin = roleRegistry.findByName("ROLE_ADMIN");
             ///Si esta presente admin lo agregas a la lista de roles
             optionalRoleAdmin.ifPresent(roles::add);
             ///Estas dos lienas son iguales
@@ -61,10 +98,16 @@ public class UserServiceImpl implements UserService{
         ///Agregas el password
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         ///Guardas el usuario con su rol o roles
-        return repository.save(user);
+        User saved = repository.save(user);
+        ///Marcas el username como existente en la cache de la validacion cuando la transaccion confirme
+        usernameCache.putExistsAfterCommit(saved.getUsername());
+        ///Quitas el usuario de la cache del login para que se lea de nuevo con sus datos nuevos
+        userCache.removeUserFromCache(saved.getUsername());
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
         return repository.existsByUsername(username);
     }
@@ -0,0 +1,65 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Cache acotada de "el username existe / no existe" para la validacion del registro.
+// Guarda respuestas positivas y negativas; UserServiceImpl.save marca como existente cada usuario
+// que se guarda, despues del commit. Las metricas (cache.gets hit/miss, cache.size,
+// cache.evictions) se publican con el nombre "usernames" en /actuator/metrics para poder dimensionarla.
+@Component
+public class UsernameCache {
+
+    private final Cache<String, Boolean> cache;
+
+    public UsernameCache(MeterRegistry registry,
+            @Value("${users.username-cache.max-size:100000}") long maxSize,
+            @Value("${users.username-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "usernames");
+    }
+
+    // Devuelve null si el username no esta en la cache y hay que consultar la base de datos
+    public Boolean exists(String username) {
+        return username == null ? null : cache.getIfPresent(username);
+    }
+
+    public void put(String username, boolean exists) {
+        if (username != null) {
+            cache.put(username, exists);
+        }
+    }
+
+    // Marca el username como existente cuando la transaccion confirma (o en el momento si no hay
+    // transaccion). Un positivo se responde sin ir a la base de datos: guardarlo antes del commit
+    // dejaria el username bloqueado hasta que expire si la transaccion se revierte.
+    public void putExistsAfterCommit(String username) {
+        if (username == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(username, true);
+                }
+            });
+        } else {
+            cache.put(username, true);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.andres.curso.springboot.app.springbootcrud.validation;
 
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.andres.curso.springboot.app.springbootcrud.services.UserService;
+import com.andres.curso.springboot.app.springbootcrud.services.UsernameCache;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
@@ -14,12 +20,40 @@ public class ExistsByUsernameValidation implements ConstraintValidator<ExistsByU
     @Autowired
     private UserService service;
 
+    @Autowired
+    private UsernameCache usernameCache;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Tiempo de la validacion segun quien respondio: la cache o la base de datos
+    private Timer cacheTimer;
+
+    private Timer databaseTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        cacheTimer = registry.timer("validation.username.exists", "source", "cache");
+        databaseTimer = registry.timer("validation.username.exists", "source", "database");
+    }
+
     @Override
     public boolean isValid(String username, ConstraintValidatorContext context) {
         if (service == null) {
             return true;
         }
-        return !service.existsByUsername(username);
+
+        // Primero se consulta la cache; solo si no hay respuesta se va a la base de datos
+        long start = System.nanoTime();
+        Boolean cached = usernameCache.exists(username);
+        if (cached != null) {
+            cacheTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return !cached;
+        }
+        boolean exists = service.existsByUsername(username);
+        usernameCache.put(username, exists);
+        databaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return !exists;
     }
     
     
@@ -1,10 +1,16 @@
 package com.andres.curso.springboot.app.springbootcrud.validation;
 
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.andres.curso.springboot.app.springbootcrud.services.ProductService;
+import com.andres.curso.springboot.app.springbootcrud.services.SkuIndex;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
@@ -14,6 +20,23 @@ public class IsExistsDbValidation implements ConstraintValidator<IsExistsDb, Str
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private SkuIndex skuIndex;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Tiempo de la validacion segun quien respondio: el indice en memoria o la base de datos
+    private Timer indexTimer;
+
+    private Timer databaseTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        indexTimer = registry.timer("validation.sku.exists", "source", "index");
+        databaseTimer = registry.timer("validation.sku.exists", "source", "database");
+    }
+
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
         
@@ -21,7 +44,17 @@ public class IsExistsDbValidation implements ConstraintValidator<IsExistsDb, Str
             return true;
         }
 
-        return !service.existsBySku(value);
+        // Si el SKU no esta en el indice en memoria se da por libre sin ir a la base de datos. Un SKU
+        // creado al mismo tiempo en otra instancia lo rechaza la restriccion unica al insertar (409)
+        long start = System.nanoTime();
+        if (skuIndex != null && !skuIndex.mightContain(value)) {
+            indexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return true;
+        }
+
+        boolean valid = !service.existsBySku(value);
+        databaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return valid;
     }
     
 }
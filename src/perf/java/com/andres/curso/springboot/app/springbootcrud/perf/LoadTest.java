@@ -0,0 +1,431 @@
+package com.andres.curso.springboot.app.springbootcrud.perf;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.andres.curso.springboot.app.springbootcrud.SpringbootCrudApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Prueba de carga reproducible: levanta la aplicacion con el perfil perf (H2 en memoria en modo MySQL),
+// crea N usuarios y M productos y ejecuta una mezcla de trafico (login, lista, ver, crear, actualizar y
+// borrar) desde varios clientes concurrentes. Imprime throughput y percentiles p50/p99/p999 por
+// operacion y los guarda en JSON para comparar entre versiones. Se ejecuta con:
+//
+//   mvn -Pperf -DskipTests verify -Dperf.args="--clients=32 --duration=60"
+//
+// Opciones: --users, --products, --clients, --duration y --warmup (segundos), --seed,
+// --mix=login:5,list:35,get:35,create:10,update:10,delete:5, --report (archivo JSON) y --profiles
+// (perfiles que se suman a perf). Para comparar hilos de plataforma con hilos virtuales (Java 21+) se
+// repite la misma corrida con mas clientes y --profiles=virtual:
+//
+//   mvn -Pperf -DskipTests verify -Dperf.args="--clients=200 --mix=login:5,list:95"
+//   mvn -Pperf -DskipTests verify -Dperf.args="--clients=200 --mix=login:5,list:95 --profiles=virtual"
+public class LoadTest {
+
+    enum Operation {
+        LOGIN, LIST, GET, CREATE, UPDATE, DELETE
+    }
+
+    private static final String PASSWORD = "perf-pass";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Map<String, String> options;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String baseUrl;
+
+    private long[] productIds;
+
+    public LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("users", "1000");
+        options.put("products", "10000");
+        options.put("clients", "32");
+        options.put("duration", "60");
+        options.put("warmup", "10");
+        options.put("seed", "42");
+        options.put("mix", "login:5,list:35,get:35,create:10,update:10,delete:5");
+        options.put("report", "target/perf-report.json");
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+
+        // Sin el reinicio de devtools: la aplicacion corre en este mismo proceso
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(SpringbootCrudApplication.class);
+        List<String> profiles = new ArrayList<>(List.of("perf"));
+        if (!options.getOrDefault("profiles", "").isBlank()) {
+            profiles.addAll(Arrays.asList(options.get("profiles").split(",")));
+        }
+        application.setAdditionalProfiles(profiles.toArray(String[]::new));
+        int status = 0;
+        try (ConfigurableApplicationContext context = application.run("--server.port=0")) {
+            LoadTest loadTest = new LoadTest(options);
+            loadTest.baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            loadTest.seed(context);
+            loadTest.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    // Usuarios por JDBC con un unico hash (BCrypt por usuario tardaria minutos) y productos por la API
+    private void seed(ConfigurableApplicationContext context) throws Exception {
+        int users = intOption("users");
+        int products = intOption("products");
+        long start = System.nanoTime();
+
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            rows.add(new Object[] { username(i), hash });
+        }
+        jdbc.batchUpdate("insert into users (username, password, enabled) values (?, ?, true)", rows);
+        jdbc.update("insert into users_roles (user_id, role_id) select u.id, r.id from users u cross join roles r "
+                + "where u.username like 'perf%'");
+
+        String adminToken = login("admin", "12345");
+        int chunk = 1000;
+        for (int from = 0; from < products; from += chunk) {
+            List<Map<String, Object>> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + chunk, products); i++) {
+                batch.add(product("SEED-" + i, i));
+            }
+            HttpResponse<String> response = send(post("/api/import", adminToken, JSON.writeValueAsString(batch)));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("No se pudieron crear los productos: " + response.body());
+            }
+        }
+
+        // Ids reales de los productos creados (los asigna el generador de tabla)
+        String export = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/export"))
+                .header("Authorization", "Bearer " + adminToken).GET().build()).body();
+        productIds = export.lines().filter(line -> !line.isBlank())
+                .mapToLong(line -> readTree(line).get("id").asLong()).toArray();
+
+        System.out.printf("Datos: %d usuarios y %d productos en %.1f s%n", users, productIds.length,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    private void run() throws Exception {
+        int clients = intOption("clients");
+        long seed = Long.parseLong(options.get("seed"));
+        Map<Operation, Integer> mix = parseMix(options.get("mix"));
+        long now = System.nanoTime();
+        long measureFrom = now + Duration.ofSeconds(intOption("warmup")).toNanos();
+        long measureUntil = measureFrom + Duration.ofSeconds(intOption("duration")).toNanos();
+
+        System.out.printf("Carga: %d clientes, %s s de calentamiento, %s s de medicion, mezcla %s%n",
+                clients, options.get("warmup"), options.get("duration"), mix);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<Map<Operation, Stats>>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            Client client = new Client(c, new Random(seed + c), mix, measureFrom, measureUntil);
+            results.add(pool.submit(client::call));
+        }
+
+        Map<Operation, Stats> total = new EnumMap<>(Operation.class);
+        for (Future<Map<Operation, Stats>> result : results) {
+            result.get().forEach((operation, stats) -> total.computeIfAbsent(operation, o -> new Stats()).merge(stats));
+        }
+        pool.shutdown();
+        report(total, intOption("duration"));
+    }
+
+    private void report(Map<Operation, Stats> total, int seconds) throws Exception {
+        Stats all = new Stats();
+        total.values().forEach(all::merge);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("options", options);
+        System.out.printf("%n%-8s %9s %7s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Operation, Stats> entry : total.entrySet()) {
+            json.put(entry.getKey().name().toLowerCase(), print(entry.getKey().name().toLowerCase(), entry.getValue(), seconds));
+        }
+        json.put("total", print("total", all, seconds));
+
+        File report = new File(options.get("report"));
+        if (report.getParentFile() != null) {
+            report.getParentFile().mkdirs();
+        }
+        JSON.writerWithDefaultPrettyPrinter().writeValue(report, json);
+        System.out.printf("%nReporte guardado en %s%n", report.getPath());
+    }
+
+    private Map<String, Object> print(String name, Stats stats, int seconds) {
+        long[] sorted = stats.sorted();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", sorted.length);
+        values.put("errors", stats.errors);
+        values.put("throughput", sorted.length / (double) seconds);
+        values.put("p50", percentile(sorted, 0.50));
+        values.put("p99", percentile(sorted, 0.99));
+        values.put("p999", percentile(sorted, 0.999));
+        values.put("max", percentile(sorted, 1.0));
+        System.out.printf("%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, sorted.length, stats.errors,
+                values.get("throughput"), values.get("p50"), values.get("p99"), values.get("p999"), values.get("max"));
+        return values;
+    }
+
+    // Cada cliente repite operaciones al azar (semilla fija) y solo mide dentro de la ventana de medicion
+    private class Client {
+
+        private final int index;
+
+        private final Random random;
+
+        private final Operation[] table;
+
+        private final long measureFrom;
+
+        private final long measureUntil;
+
+        private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+        // Productos creados por este cliente: solo estos se actualizan y se borran
+        private final Deque<Long> created = new ArrayDeque<>();
+
+        private String token;
+
+        private String cursor;
+
+        private int sequence;
+
+        Client(int index, Random random, Map<Operation, Integer> mix, long measureFrom, long measureUntil) {
+            this.index = index;
+            this.random = random;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+            List<Operation> weighted = new ArrayList<>();
+            mix.forEach((operation, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    weighted.add(operation);
+                }
+            });
+            this.table = weighted.toArray(new Operation[0]);
+        }
+
+        Map<Operation, Stats> call() throws Exception {
+            token = login(randomUser(), PASSWORD);
+            while (true) {
+                long start = System.nanoTime();
+                if (start >= measureUntil) {
+                    return stats;
+                }
+                Operation operation = table[random.nextInt(table.length)];
+                if ((operation == Operation.UPDATE || operation == Operation.DELETE) && created.isEmpty()) {
+                    operation = Operation.CREATE;
+                }
+                boolean ok;
+                try {
+                    ok = execute(operation);
+                } catch (Exception e) {
+                    ok = false;
+                }
+                long elapsed = System.nanoTime() - start;
+                if (start >= measureFrom) {
+                    stats.computeIfAbsent(operation, o -> new Stats()).record(elapsed, ok);
+                }
+            }
+        }
+
+        private boolean execute(Operation operation) throws Exception {
+            switch (operation) {
+                case LOGIN: {
+                    HttpResponse<String> response = send(loginRequest(randomUser(), PASSWORD));
+                    if (response.statusCode() == 200) {
+                        token = readTree(response.body()).get("token").asText();
+                    }
+                    return response.statusCode() == 200;
+                }
+                case LIST: {
+                    String query = cursor == null ? "/api/lista?size=20" : "/api/lista?size=20&cursor=" + cursor;
+                    HttpResponse<String> response = send(get(query));
+                    JsonNode next = response.statusCode() == 200 ? readTree(response.body()).get("nextCursor") : null;
+                    cursor = next == null || next.isNull() ? null : next.asText();
+                    return response.statusCode() == 200;
+                }
+                case GET:
+                    return send(get("/api/" + productIds[random.nextInt(productIds.length)])).statusCode() == 200;
+                case CREATE: {
+                    HttpResponse<String> response = send(post("/api", token,
+                            JSON.writeValueAsString(product(nextSku(), random.nextInt(10_000)))));
+                    if (response.statusCode() == 201) {
+                        created.add(readTree(response.body()).get("id").asLong());
+                    }
+                    return response.statusCode() == 201;
+                }
+                case UPDATE: {
+                    long id = created.peekLast();
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/" + id))
+                            .header("Authorization", "Bearer " + token)
+                            .header("Content-Type", "application/json")
+                            .header("If-Match", "*")
+                            .PUT(HttpRequest.BodyPublishers.ofString(
+                                    JSON.writeValueAsString(product(nextSku(), random.nextInt(10_000)))))
+                            .build();
+                    return send(request).statusCode() == 201;
+                }
+                case DELETE: {
+                    long id = created.pollFirst();
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/" + id))
+                            .header("Authorization", "Bearer " + token).DELETE().build();
+                    return send(request).statusCode() == 204;
+                }
+                default:
+                    throw new IllegalStateException(operation.name());
+            }
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token).GET().build();
+        }
+
+        private String randomUser() {
+            return username(random.nextInt(intOption("users")));
+        }
+
+        private String nextSku() {
+            return "C" + index + "-" + (sequence++);
+        }
+    }
+
+    // Latencias en nanosegundos de una operacion
+    private static class Stats {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Stats other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private String login(String username, String password) throws Exception {
+        HttpResponse<String> response = send(loginRequest(username, password));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login fallido para " + username + ": " + response.statusCode());
+        }
+        return readTree(response.body()).get("token").asText();
+    }
+
+    private HttpRequest loginRequest(String username, String password) throws Exception {
+        Map<String, String> body = Map.of("username", username, "password", password);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body))).build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Map<String, Object> product(String sku, int n) {
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("sku", sku);
+        product.put("name", "Producto " + n);
+        product.put("description", "Producto de prueba de carga " + n);
+        product.put("price", 500 + n);
+        return product;
+    }
+
+    private static String username(int i) {
+        return String.format("perf%05d", i);
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return JSON.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            weights.put(Operation.valueOf(pair[0].toUpperCase()), Integer.parseInt(pair[1]));
+        }
+        return weights;
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
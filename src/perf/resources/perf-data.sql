@@ -0,0 +1,5 @@
+INSERT INTO roles (name) VALUES ('ROLE_USER');
+INSERT INTO roles (name) VALUES ('ROLE_ADMIN');
+INSERT INTO users (username, password, enabled) VALUES ('admin', '$2a$10$tJDvEhUuSrK0DUe6J9OjXuYhMHmMNp5d1KTTFw1kEP3JHXhhTrmq2', true);
+INSERT INTO users_roles (user_id, role_id) VALUES (1, 1);
+INSERT INTO users_roles (user_id, role_id) VALUES (1, 2);
@@ -0,0 +1,60 @@
+package com.andres.curso.springboot.app.springbootcrud.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+class ProductCsvTest {
+
+	@Test
+	void splitsQuotedValuesWithCommasAndEscapedQuotes() throws IOException {
+		List<List<String>> records = ProductController.readCsvRecords(
+				new StringReader("a,\"b, c\",\"dice \"\"hola\"\"\",\n"));
+
+		assertThat(records).containsExactly(List.of("a", "b, c", "dice \"hola\"", ""));
+	}
+
+	@Test
+	void keepsLineBreaksInsideQuotedValues() throws IOException {
+		List<List<String>> records = ProductController.readCsvRecords(
+				new StringReader("sku,description\r\nS-1,\"linea 1\r\nlinea 2\"\r\nS-2,simple\r\n"));
+
+		assertThat(records).containsExactly(
+				List.of("sku", "description"),
+				List.of("S-1", "linea 1\r\nlinea 2"),
+				List.of("S-2", "simple"));
+	}
+
+	@Test
+	void skipsBlankLinesAndMissingTrailingNewline() throws IOException {
+		List<List<String>> records = ProductController.readCsvRecords(new StringReader("a,b\n\n   \nc,d"));
+
+		assertThat(records).containsExactly(List.of("a", "b"), List.of("c", "d"));
+	}
+
+	@Test
+	void mapsColumnsByHeaderInAnyOrder() throws IOException {
+		List<Product> products = ProductController.readCsv(new StringReader(
+				"price,Name,sku,description,extra\n900,Mesa,S-1,\"Madera,\nroble\",x\nabc,Silla,S-2,d,y\n"));
+
+		assertThat(products).hasSize(2);
+		Product first = products.get(0);
+		assertThat(first.getSku()).isEqualTo("S-1");
+		assertThat(first.getName()).isEqualTo("Mesa");
+		assertThat(first.getPrice()).isEqualTo(900);
+		assertThat(first.getDescription()).isEqualTo("Madera,\nroble");
+		// Un precio que no es numero queda en null para que la validacion lo reporte
+		assertThat(products.get(1).getPrice()).isNull();
+	}
+
+	@Test
+	void emptyInputHasNoProducts() throws IOException {
+		assertThat(ProductController.readCsv(new StringReader(""))).isEmpty();
+	}
+}
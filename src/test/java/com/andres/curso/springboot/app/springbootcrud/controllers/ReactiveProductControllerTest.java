@@ -0,0 +1,119 @@
+package com.andres.curso.springboot.app.springbootcrud.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+import com.andres.curso.springboot.app.springbootcrud.services.ProductServiceImpl;
+import com.andres.curso.springboot.app.springbootcrud.services.ReactiveProductServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// /api/reactive/products con el servicio real sobre H2 en memoria (r2dbc-h2) en lugar de MySQL
+class ReactiveProductControllerTest {
+
+	private static final int PRODUCTS = 150;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private ReactiveProductServiceImpl service;
+
+	private DatabaseClient client;
+
+	private MockMvc mvc;
+
+	@BeforeEach
+	void setUp() {
+		service = new ReactiveProductServiceImpl("r2dbc:h2:mem:///reactive-test?DB_CLOSE_DELAY=-1", "", "");
+		client = (DatabaseClient) ReflectionTestUtils.getField(service, "client");
+		client.sql("create table " + Product.TABLE_NAME + " (id bigint primary key, sku varchar(255), "
+				+ "name varchar(255), price int, description varchar(255), version bigint)").then().block();
+		for (int id = 1; id <= PRODUCTS; id++) {
+			client.sql("insert into " + Product.TABLE_NAME + " values (:id, :sku, :name, :price, null, 0)")
+					.bind("id", id).bind("sku", "SKU-" + id).bind("name", "Producto " + id).bind("price", 500 + id)
+					.then().block();
+		}
+
+		ReactiveProductController controller = new ReactiveProductController();
+		ReflectionTestUtils.setField(controller, "service", service);
+		mvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		client.sql("drop table " + Product.TABLE_NAME).then().block();
+		service.close();
+	}
+
+	@Test
+	void listStartsAfterTheGivenIdAndStopsAtTheLimit() throws Exception {
+		List<Product> products = list("/api/reactive/products?after=10&limit=3");
+
+		assertThat(products).extracting(Product::getId).containsExactly(11L, 12L, 13L);
+		assertThat(products.get(0).getSku()).isEqualTo("SKU-11");
+		assertThat(products.get(0).getPrice()).isEqualTo(511);
+	}
+
+	@Test
+	void listWithoutLimitStreamsTheRestOfTheCatalog() throws Exception {
+		assertThat(list("/api/reactive/products?after=" + (PRODUCTS - 2))).extracting(Product::getId)
+				.containsExactly(PRODUCTS - 1L, (long) PRODUCTS);
+	}
+
+	@Test
+	void limitIsClampedToMaxPageSize() throws Exception {
+		assertThat(list("/api/reactive/products?limit=100000")).hasSize(ProductServiceImpl.MAX_PAGE_SIZE);
+		assertThat(list("/api/reactive/products?limit=-5")).extracting(Product::getId).containsExactly(1L);
+	}
+
+	@Test
+	void viewReturnsTheProduct() throws Exception {
+		MvcResult result = mvc.perform(get("/api/reactive/products/42"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		String body = mvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertThat(objectMapper.readValue(body, Product.class).getSku()).isEqualTo("SKU-42");
+	}
+
+	@Test
+	void viewOfMissingProductIsNotFound() throws Exception {
+		MvcResult result = mvc.perform(get("/api/reactive/products/" + (PRODUCTS + 1)))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		mvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+	}
+
+	// El flujo NDJSON se escribe en la respuesta a medida que llega; al terminar se lee linea por linea
+	private List<Product> list(String uri) throws Exception {
+		MvcResult result = mvc.perform(get(uri).accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+		result.getAsyncResult(5000);
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(200);
+		return result.getResponse().getContentAsString().lines()
+				.filter(line -> !line.isBlank())
+				.map(line -> {
+					try {
+						return objectMapper.readValue(line, Product.class);
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				})
+				.toList();
+	}
+}
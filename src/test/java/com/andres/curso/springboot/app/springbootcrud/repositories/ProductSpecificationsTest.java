@@ -0,0 +1,115 @@
+package com.andres.curso.springboot.app.springbootcrud.repositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductFilter;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+// Keyset de ProductSpecifications sobre H2: recorrer el listado pagina por pagina con after(...)
+// tiene que devolver las mismas filas, en el mismo orden, que una sola consulta ordenada
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.jakarta.persistence.validation.mode=none" })
+class ProductSpecificationsTest {
+
+	private static final ProductFilter NO_FILTER = new ProductFilter(null, null, null);
+
+	@Autowired
+	private ProductRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		// Precios y nombres repetidos para que el desempate por id importe
+		List<Product> products = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			products.add(product("SKU-" + i, "Producto " + (char) ('a' + i % 4), 500 + (i % 5) * 100));
+		}
+		repository.saveAll(products);
+	}
+
+	@Test
+	void keysetByPriceAscendingMatchesFullOrder() {
+		assertPagesMatchFullOrder("price", Sort.Direction.ASC, 4);
+	}
+
+	@Test
+	void keysetByPriceDescendingMatchesFullOrder() {
+		assertPagesMatchFullOrder("price", Sort.Direction.DESC, 7);
+	}
+
+	@Test
+	void keysetByNameMatchesFullOrder() {
+		assertPagesMatchFullOrder("name", Sort.Direction.ASC, 3);
+		assertPagesMatchFullOrder("name", Sort.Direction.DESC, 5);
+	}
+
+	@Test
+	void keysetRespectsFilters() {
+		ProductFilter filter = new ProductFilter(600, 800, null);
+		Sort sort = Sort.by(Sort.Direction.ASC, "price", "id");
+		List<Product> all = repository.findBy(ProductSpecifications.matching(filter), q -> q.sortBy(sort).all());
+		Product last = all.get(5);
+
+		List<Product> rest = repository.findBy(ProductSpecifications.matching(filter)
+				.and(ProductSpecifications.after("price", Sort.Direction.ASC, last.getPrice(), last.getId())),
+				q -> q.sortBy(sort).all());
+
+		assertThat(rest).extracting(Product::getId)
+				.containsExactlyElementsOf(all.subList(6, all.size()).stream().map(Product::getId).toList());
+		assertThat(rest).allSatisfy(product -> assertThat(product.getPrice()).isBetween(600, 800));
+	}
+
+	@Test
+	void namePrefixEscapesLikeWildcards() {
+		repository.save(product("SKU-LIKE-1", "100% algodon", 900));
+		repository.save(product("SKU-LIKE-2", "100 algodon", 900));
+
+		List<Product> found = repository.findBy(ProductSpecifications.matching(new ProductFilter(null, null, "100%")),
+				q -> q.all());
+
+		assertThat(found).extracting(Product::getSku).containsExactly("SKU-LIKE-1");
+	}
+
+	private void assertPagesMatchFullOrder(String field, Sort.Direction direction, int pageSize) {
+		Sort sort = Sort.by(direction, field, "id");
+		List<Long> expected = repository.findBy(ProductSpecifications.matching(NO_FILTER), q -> q.sortBy(sort).all())
+				.stream().map(Product::getId).toList();
+
+		List<Long> paged = new ArrayList<>();
+		Product last = null;
+		while (true) {
+			Specification<Product> spec = ProductSpecifications.matching(NO_FILTER);
+			if (last != null) {
+				spec = spec.and("price".equals(field)
+						? ProductSpecifications.after(field, direction, last.getPrice(), last.getId())
+						: ProductSpecifications.after(field, direction, last.getName(), last.getId()));
+			}
+			List<Product> page = repository.findBy(spec, q -> q.sortBy(sort).limit(pageSize).all());
+			if (page.isEmpty()) {
+				break;
+			}
+			page.forEach(product -> paged.add(product.getId()));
+			last = page.get(page.size() - 1);
+		}
+
+		assertThat(paged).containsExactlyElementsOf(expected);
+	}
+
+	private static Product product(String sku, String name, Integer price) {
+		Product product = new Product();
+		product.setSku(sku);
+		product.setName(name);
+		product.setPrice(price);
+		return product;
+	}
+}
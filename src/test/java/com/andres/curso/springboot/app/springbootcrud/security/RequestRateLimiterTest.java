@@ -0,0 +1,92 @@
+package com.andres.curso.springboot.app.springbootcrud.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// GCRA con instantes fijos: capacidad 3 y un token cada 100 ns
+class RequestRateLimiterTest {
+
+	private static final long INTERVAL = 100;
+	private static final long BURST = 3 * INTERVAL;
+
+	@Test
+	void fullBucketAllowsCapacityRequestsAtOnce() {
+		AtomicLong bucket = new AtomicLong(0);
+
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 0)).isZero();
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 0)).isZero();
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 0)).isZero();
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 0)).isEqualTo(INTERVAL);
+	}
+
+	@Test
+	void waitIsTheTimeUntilTheNextToken() {
+		AtomicLong bucket = new AtomicLong(0);
+		for (int i = 0; i < 3; i++) {
+			RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 0);
+		}
+
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 30)).isEqualTo(INTERVAL - 30);
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 99)).isEqualTo(1);
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 100)).isZero();
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 100)).isEqualTo(INTERVAL);
+	}
+
+	@Test
+	void rejectedRequestsDoNotConsumeTokens() {
+		AtomicLong bucket = new AtomicLong(0);
+		for (int i = 0; i < 3; i++) {
+			RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 0);
+		}
+		long emptyAt = bucket.get();
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, 50)).isEqualTo(50);
+		}
+		assertThat(bucket.get()).isEqualTo(emptyAt);
+	}
+
+	@Test
+	void idleBucketRefillsOnlyUpToCapacity() {
+		AtomicLong bucket = new AtomicLong(0);
+		long later = 1_000_000 * INTERVAL;
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, later)).isZero();
+		}
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, later)).isEqualTo(INTERVAL);
+	}
+
+	@Test
+	void handlesNanoTimeOverflow() {
+		long start = Long.MAX_VALUE - INTERVAL;
+		AtomicLong bucket = new AtomicLong(start);
+		for (int i = 0; i < 3; i++) {
+			assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, start)).isZero();
+		}
+
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, start)).isEqualTo(INTERVAL);
+		assertThat(RequestRateLimiter.acquire(bucket, INTERVAL, BURST, start + INTERVAL)).isZero();
+	}
+
+	@Test
+	void keysHaveSeparateBucketsBuiltFromTheProperties() {
+		RequestRateLimiter limiter = new RequestRateLimiter(new SimpleMeterRegistry(), 2, 1, 1, 0.5,
+				Duration.ofMinutes(10), 1000);
+
+		assertThat(limiter.acquireForUser("ana")).isZero();
+		assertThat(limiter.acquireForUser("ana")).isZero();
+		assertThat(limiter.acquireForUser("ana")).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+		assertThat(limiter.acquireForUser("luis")).isZero();
+
+		assertThat(limiter.acquireForIp("10.0.0.1")).isZero();
+		assertThat(limiter.acquireForIp("10.0.0.1")).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(2));
+	}
+}
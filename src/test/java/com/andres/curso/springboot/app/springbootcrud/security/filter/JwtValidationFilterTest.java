@@ -0,0 +1,69 @@
+package com.andres.curso.springboot.app.springbootcrud.security.filter;
+
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.AUTHORITIES_CLAIM;
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.HEADER_AUTHORIZATION;
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.PREFIX_TOKEN;
+import static com.andres.curso.springboot.app.springbootcrud.security.TokenJwtConfig.SECRET_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.andres.curso.springboot.app.springbootcrud.security.VerifiedTokenCache;
+
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwtValidationFilterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final JwtValidationFilter filter = new JwtValidationFilter(authentication -> authentication,
+			new VerifiedTokenCache(registry, 100), true, registry);
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void acceptsLegacyAuthoritiesString() throws Exception {
+		MockHttpServletResponse response = filter(token("[{\"authority\":\"ROLE_USER\"}]"));
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+				.extracting(Object::toString).containsExactly("ROLE_USER");
+	}
+
+	@Test
+	void malformedLegacyAuthoritiesIsUnauthorized() throws Exception {
+		MockHttpServletResponse response = filter(token("no es json"));
+
+		assertThat(response.getStatus()).isEqualTo(401);
+		assertThat(response.getContentAsString()).contains("El token JWT es invalido!");
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+	}
+
+	private MockHttpServletResponse filter(String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/lista");
+		request.addHeader(HEADER_AUTHORIZATION, PREFIX_TOKEN + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilterInternal(request, response, new MockFilterChain());
+		return response;
+	}
+
+	private static String token(String authorities) {
+		return Jwts.builder()
+				.subject("admin")
+				.claim(AUTHORITIES_CLAIM, authorities)
+				.expiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(SECRET_KEY)
+				.compact();
+	}
+}
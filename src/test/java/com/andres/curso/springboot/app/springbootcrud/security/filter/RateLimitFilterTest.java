@@ -0,0 +1,47 @@
+package com.andres.curso.springboot.app.springbootcrud.security.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+
+import com.andres.curso.springboot.app.springbootcrud.security.RequestRateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTest {
+
+	@Test
+	void retryAfterRoundsUpToWholeSeconds() {
+		assertThat(RateLimitFilter.retryAfterSeconds(1)).isEqualTo(1);
+		assertThat(RateLimitFilter.retryAfterSeconds(999_999_999)).isEqualTo(1);
+		assertThat(RateLimitFilter.retryAfterSeconds(1_000_000_000)).isEqualTo(1);
+		assertThat(RateLimitFilter.retryAfterSeconds(1_000_000_001)).isEqualTo(2);
+		assertThat(RateLimitFilter.retryAfterSeconds(2_500_000_000L)).isEqualTo(3);
+	}
+
+	@Test
+	void anonymousRequestOverTheIpLimitGets429WithRetryAfter() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		// 1 peticion por IP y un token cada 4 segundos
+		RequestRateLimiter limiter = new RequestRateLimiter(registry, 100, 100, 1, 0.25, Duration.ofMinutes(10), 1000);
+		RateLimitFilter filter = new RateLimitFilter(limiter, AnyRequestMatcher.INSTANCE, registry);
+
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("POST", "/login"), first, new MockFilterChain());
+		MockHttpServletResponse second = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("POST", "/login"), second, new MockFilterChain());
+
+		assertThat(first.getStatus()).isEqualTo(200);
+		assertThat(second.getStatus()).isEqualTo(429);
+		assertThat(second.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("4");
+		assertThat(second.getContentAsString()).contains("limite por IP superado");
+		assertThat(registry.get(RateLimitFilter.REJECTED_COUNTER).tag("key", "ip").counter().count()).isEqualTo(1);
+	}
+}
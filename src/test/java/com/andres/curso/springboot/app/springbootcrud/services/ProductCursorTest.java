@@ -0,0 +1,96 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductFilter;
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductPageQuery;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+class ProductCursorTest {
+
+	private static final ProductFilter NO_FILTER = new ProductFilter(null, null, null);
+
+	private final ProductServiceImpl service = new ProductServiceImpl();
+
+	@Test
+	void idCursorRoundTrip() {
+		String cursor = ProductServiceImpl.encodeCursor(Sort.Direction.DESC, ProductServiceImpl.SORT_BY_ID,
+				product(42L, "Mesa", 900));
+
+		assertThat(cursor).doesNotContain("=", "+", "/");
+		assertThat(ProductServiceImpl.decodeCursor(cursor)).containsExactly("DESC", "42");
+	}
+
+	@Test
+	void priceCursorCarriesTheLastValue() {
+		String cursor = ProductServiceImpl.encodeCursor(Sort.Direction.ASC, ProductServiceImpl.SORT_BY_PRICE,
+				product(7L, "Mesa", 1500));
+
+		assertThat(ProductServiceImpl.decodeCursor(cursor)).containsExactly("ASC", "7", "price", "1500");
+	}
+
+	@Test
+	void nameCursorKeepsColonsInTheName() {
+		String cursor = ProductServiceImpl.encodeCursor(Sort.Direction.ASC, ProductServiceImpl.SORT_BY_NAME,
+				product(9L, "Mesa: roble: 2m", 900));
+
+		assertThat(ProductServiceImpl.decodeCursor(cursor)).containsExactly("ASC", "9", "name", "Mesa: roble: 2m");
+	}
+
+	@Test
+	void cursorOverridesOrderAndDirection() {
+		String cursor = ProductServiceImpl.encodeCursor(Sort.Direction.DESC, ProductServiceImpl.SORT_BY_PRICE,
+				product(7L, "Mesa", 1500));
+
+		ProductPageQuery query = service.pageQuery(NO_FILTER, cursor, 500, ProductServiceImpl.SORT_BY_NAME, "asc");
+
+		assertThat(query.orderBy()).isEqualTo(ProductServiceImpl.SORT_BY_PRICE);
+		assertThat(query.direction()).isEqualTo(Sort.Direction.DESC);
+		assertThat(query.lastId()).isEqualTo(7L);
+		assertThat(query.lastValue()).isEqualTo("1500");
+		assertThat(query.pageSize()).isEqualTo(ProductServiceImpl.MAX_PAGE_SIZE);
+	}
+
+	@Test
+	void invalidCursorsAreRejected() {
+		assertThatThrownBy(() -> service.pageQuery(NO_FILTER, "no es base64!", 20, "id", "asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.pageQuery(NO_FILTER, raw("ASC"), 20, "id", "asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.pageQuery(NO_FILTER, raw("ASC:x"), 20, "id", "asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.pageQuery(NO_FILTER, raw("ASC:1:price:caro"), 20, "id", "asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.pageQuery(NO_FILTER, raw("ASC:1:sku:A"), 20, "id", "asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void invalidParametersAreRejected() {
+		assertThatThrownBy(() -> service.pageQuery(NO_FILTER, null, 20, "id", "arriba"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.pageQuery(NO_FILTER, null, 20, "sku", "asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.pageQuery(new ProductFilter(900, 100, null), null, 20, "id", "asc"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String raw(String cursor) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Product product(Long id, String name, Integer price) {
+		Product product = new Product();
+		product.setId(id);
+		product.setName(name);
+		product.setPrice(price);
+		return product;
+	}
+}
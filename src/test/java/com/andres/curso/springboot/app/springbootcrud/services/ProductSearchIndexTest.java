@@ -0,0 +1,114 @@
+package com.andres.curso.springboot.app.springbootcrud.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.andres.curso.springboot.app.springbootcrud.dto.ProductSearchPage;
+import com.andres.curso.springboot.app.springbootcrud.entities.Product;
+
+// Sin transaccion activa index y remove se aplican en el momento
+class ProductSearchIndexTest {
+
+	private final ProductSearchIndex index = new ProductSearchIndex();
+
+	@Test
+	void tokenizeLowercasesRemovesAccentsAndSplitsOnSeparators() {
+		assertThat(ProductSearchIndex.tokenize("Café-Ñandú 2 (ROJO)")).containsExactly("cafe", "nandu", "2", "rojo");
+		assertThat(ProductSearchIndex.tokenize("  --  ")).isEmpty();
+		assertThat(ProductSearchIndex.tokenize(null)).isEmpty();
+	}
+
+	@Test
+	void skuMatchRanksAboveNameAndNameAboveDescription() {
+		index.index(product(1L, "X-1", "Silla", "mesa de roble", 1L));
+		index.index(product(2L, "X-2", "Mesa", "de comedor", 1L));
+		index.index(product(3L, "MESA-3", "Banco", null, 1L));
+
+		assertThat(ids(index.search("mesa", 0, 10))).containsExactly(3L, 2L, 1L);
+	}
+
+	@Test
+	void everyWordMustMatchAndScoresAddUp() {
+		index.index(product(1L, "A-1", "Mesa roja", null, 1L));
+		index.index(product(2L, "A-2", "Mesa azul", "roja por dentro", 1L));
+		index.index(product(3L, "A-3", "Silla roja", null, 1L));
+
+		assertThat(ids(index.search("roja mesa", 0, 10))).containsExactly(1L, 2L);
+	}
+
+	@Test
+	void prefixMatchesOnlyTermsStartingWithTheWordAndScoresLessThanExact() {
+		index.index(product(1L, "B-1", "Cafetera", null, 1L));
+		index.index(product(2L, "B-2", "Cafe", null, 1L));
+		index.index(product(3L, "B-3", "Cacao", null, 1L));
+		index.index(product(4L, "B-4", "Cb", null, 1L));
+
+		assertThat(ids(index.search("cafe", 0, 10))).containsExactly(2L, 1L);
+		assertThat(ids(index.search("ca", 0, 10))).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	void singleLetterWordsOnlyMatchExactTerms() {
+		index.index(product(1L, "C-1", "Pack x 6", null, 1L));
+		index.index(product(2L, "C-2", "Xilofono", null, 1L));
+
+		assertThat(ids(index.search("x", 0, 10))).containsExactly(1L);
+	}
+
+	@Test
+	void pagesResultsAndReportsTotal() {
+		for (long id = 1; id <= 5; id++) {
+			index.index(product(id, "D-" + id, "Lampara", null, 1L));
+		}
+
+		ProductSearchPage page = index.search("lampara", 1, 2);
+		assertThat(ids(page)).containsExactly(3L, 4L);
+		assertThat(page.totalElements()).isEqualTo(5);
+	}
+
+	@Test
+	void reindexReplacesOldTerms() {
+		index.index(product(1L, "E-1", "Mesa", null, 1L));
+		index.index(product(1L, "E-1", "Silla", null, 2L));
+
+		assertThat(ids(index.search("mesa", 0, 10))).isEmpty();
+		assertThat(ids(index.search("silla", 0, 10))).containsExactly(1L);
+	}
+
+	@Test
+	void olderVersionArrivingLateIsDropped() {
+		index.index(product(1L, "F-1", "Silla", null, 3L));
+		index.index(product(1L, "F-1", "Mesa", null, 2L));
+
+		assertThat(ids(index.search("silla", 0, 10))).containsExactly(1L);
+		assertThat(ids(index.search("mesa", 0, 10))).isEmpty();
+	}
+
+	@Test
+	void removedProductIsNotRevivedByALateUpdate() {
+		index.index(product(1L, "G-1", "Mesa", null, 1L));
+		index.remove(1L);
+		index.index(product(1L, "G-1", "Mesa", null, 2L));
+
+		assertThat(ids(index.search("mesa", 0, 10))).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+
+	private static List<Long> ids(ProductSearchPage page) {
+		return page.content().stream().map(Product::getId).toList();
+	}
+
+	private static Product product(Long id, String sku, String name, String description, Long version) {
+		Product product = new Product();
+		product.setId(id);
+		product.setSku(sku);
+		product.setName(name);
+		product.setDescription(description);
+		product.setPrice(1000);
+		product.setVersion(version);
+		return product;
+	}
+}